@@ -3,9 +3,11 @@ package in.raghunath.blogapp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableMongoRepositories(basePackages = "in.raghunath.blogapp.repo")
+@EnableScheduling
 public class BlogappApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of PATCH /api/blogs/{id}. Null fields are left untouched.
+ * version is the Blog.version the client last read; when present the patch is only
+ * applied if the blog is still at that version, otherwise the request fails with 409.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BlogPatch {
+    private String title;
+    private String subtitle;
+    private String content;
+    private String topic;
+    private Long version;
+}
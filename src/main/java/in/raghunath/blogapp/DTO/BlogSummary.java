@@ -0,0 +1,36 @@
+package in.raghunath.blogapp.DTO;
+
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.ImageVariant;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Read model for feed cards and search results.
+ * Everything a listing renders, without the (potentially huge) content body.
+ * Listing queries in BlogRepo project exactly these fields on the Mongo side,
+ * the full Blog document is only served by GET /api/blogs/{id}.
+ */
+public record BlogSummary(
+        String id,
+        String authorUsername,
+        String topic,
+        String title,
+        String subtitle,
+        String excerpt,
+        Integer readingTimeMinutes,
+        Boolean isPublished,
+        Date createdAt,
+        Date updatedAt,
+        String imageUrl,
+        List<ImageVariant> imageVariants,
+        Long version
+) {
+
+    public static BlogSummary of(Blog blog) {
+        return new BlogSummary(blog.getId(), blog.getAuthorUsername(), blog.getTopic(), blog.getTitle(),
+                blog.getSubtitle(), blog.getExcerpt(), blog.getReadingTimeMinutes(), blog.getIsPublished(),
+                blog.getCreatedAt(), blog.getUpdatedAt(), blog.getImageUrl(), blog.getImageVariants(), blog.getVersion());
+    }
+}
@@ -0,0 +1,21 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkUserError {
+
+    // Position in the request list
+    private int index;
+
+    private String username;
+
+    // The offending field (username, email, password), null if the insert failed for another reason
+    private String field;
+
+    private String message;
+}
@@ -0,0 +1,23 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of POST /api/users/bulk. Users are inserted independently, so some can fail
+ * (invalid, or username/email taken) while the rest are created.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkUserResult {
+
+    private int requested;
+
+    private int created;
+
+    private List<BulkUserError> errors;
+}
@@ -0,0 +1,18 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    // Opaque cursor for the next page, null when this is the last page
+    private String next;
+}
@@ -0,0 +1,19 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportError {
+
+    // 1-based line of the NDJSON body
+    private long line;
+
+    // The record's id, if it had one
+    private String id;
+
+    private String message;
+}
@@ -0,0 +1,27 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an NDJSON import. Records are inserted independently, so an import that
+ * reports failures has still written everything else.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult {
+
+    // Non-blank lines read
+    private long records;
+
+    private long imported;
+
+    private long failed;
+
+    // The first max-reported-errors failures, in line order
+    private List<ImportError> errors;
+}
@@ -0,0 +1,8 @@
+package in.raghunath.blogapp.DTO;
+
+/**
+ * One ranked search result. The snippet is HTML-escaped text from the blog with
+ * matched words wrapped in &lt;mark&gt; tags.
+ */
+public record SearchHit(BlogSummary blog, double score, String snippet) {
+}
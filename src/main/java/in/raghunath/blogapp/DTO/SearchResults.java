@@ -0,0 +1,21 @@
+package in.raghunath.blogapp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResults {
+
+    private List<SearchHit> hits;
+
+    // Number of matching blogs across all pages
+    private long total;
+
+    private int page;
+    private int size;
+}
@@ -0,0 +1,41 @@
+package in.raghunath.blogapp.DTO;
+
+import in.raghunath.blogapp.model.ImageVariant;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * State of an asynchronous image upload, as returned by the job status endpoint.
+ * Immutable: UploadJobService replaces the cached instance on every transition.
+ */
+public record UploadJob(
+        String id,
+        String username,
+        Status status,
+        String url,
+        String publicId,
+        List<ImageVariant> variants,
+        String error,
+        Instant submittedAt,
+        Instant completedAt
+) {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    public static UploadJob queued(String id, String username) {
+        return new UploadJob(id, username, Status.QUEUED, null, null, List.of(), null, Instant.now(), null);
+    }
+
+    public UploadJob running() {
+        return new UploadJob(id, username, Status.RUNNING, null, null, List.of(), null, submittedAt, null);
+    }
+
+    public UploadJob succeeded(String url, String publicId, List<ImageVariant> variants) {
+        return new UploadJob(id, username, Status.SUCCEEDED, url, publicId, variants, null, submittedAt, Instant.now());
+    }
+
+    public UploadJob failed(String error) {
+        return new UploadJob(id, username, Status.FAILED, null, null, List.of(), error, submittedAt, Instant.now());
+    }
+}
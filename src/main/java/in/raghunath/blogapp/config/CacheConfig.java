@@ -0,0 +1,208 @@
+package in.raghunath.blogapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import in.raghunath.blogapp.DTO.UploadJob;
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.ImageVariant;
+import in.raghunath.blogapp.model.RefreshToken;
+import in.raghunath.blogapp.model.TocEntry;
+import in.raghunath.blogapp.service.BlogBodyService;
+import in.raghunath.blogapp.util.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * In-process caches. All of them are Caffeine (W-TinyLFU admission and eviction), bounded,
+ * and publish hit/miss/eviction statistics as cache.* meters tagged with the cache name.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.cache.blogs.max-weight-bytes}")
+    private long blogCacheMaxWeightBytes;
+
+    @Value("${app.cache.blogs.ttl}")
+    private Duration blogCacheTtl;
+
+    @Value("${app.cache.blog-bodies.max-bytes}")
+    private long blogBodyCacheMaxBytes;
+
+    @Value("${app.cache.user-details.max-size}")
+    private long userDetailsCacheMaxSize;
+
+    @Value("${app.cache.user-details.ttl}")
+    private Duration userDetailsCacheTtl;
+
+    @Value("${app.cache.verified-tokens.max-size}")
+    private long verifiedTokenCacheMaxSize;
+
+    @Value("${app.cache.refresh-tokens.max-size}")
+    private long refreshTokenCacheMaxSize;
+
+    @Value("${app.cache.refresh-tokens.ttl}")
+    private Duration refreshTokenCacheTtl;
+
+    @Value("${app.uploads.job-ttl}")
+    private Duration uploadJobTtl;
+
+    @Value("${app.images.cache.max-bytes}")
+    private long imageCacheMaxBytes;
+
+    /**
+     * Full blog documents by id, read through by BlogService.getBlogById.
+     * Bounded by approximate heap size rather than entry count, so a few huge posts cannot
+     * crowd out everything else. BlogService invalidates entries on every write; the TTL only
+     * bounds staleness for writes made by other nodes.
+     */
+    @Bean
+    public Cache<String, Blog> blogCache(MeterRegistry meterRegistry) {
+        Cache<String, Blog> cache = Caffeine.newBuilder()
+                .maximumWeight(blogCacheMaxWeightBytes)
+                .weigher((String id, Blog blog) -> approximateSize(blog))
+                .expireAfterWrite(blogCacheTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "blogs");
+    }
+
+    /**
+     * Serialised (and gzipped) response bodies of published blogs by id, see BlogBodyService.
+     * Weighed by their bytes. No TTL: an entry is only served for the version it was made from.
+     */
+    @Bean
+    public Cache<String, BlogBodyService.Body> blogBodyCache(MeterRegistry meterRegistry) {
+        Cache<String, BlogBodyService.Body> cache = Caffeine.newBuilder()
+                .maximumWeight(blogBodyCacheMaxBytes)
+                .weigher((String id, BlogBodyService.Body body) ->
+                        64 + body.json().length + (body.gzipped() == null ? 0 : body.gzipped().length))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "blogBodies");
+    }
+
+    /**
+     * UserDetails by username for MyUserDetailsService. Entries are evicted when a user is
+     * deleted or their credentials change; the TTL bounds how long any other change takes to show.
+     */
+    @Bean
+    public Cache<String, UserDetails> userDetailsCache(MeterRegistry meterRegistry) {
+        Cache<String, UserDetails> cache = Caffeine.newBuilder()
+                .maximumSize(userDetailsCacheMaxSize)
+                .expireAfterWrite(userDetailsCacheTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Verified access-token claims by SHA-256 digest of the token, see VerifiedTokenCache.
+     * Each entry expires exactly when its token does, so an expired token is never served.
+     */
+    @Bean
+    public Cache<ByteBuffer, VerifiedToken> verifiedTokenClaimsCache(MeterRegistry meterRegistry) {
+        Cache<ByteBuffer, VerifiedToken> cache = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheMaxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer digest, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(digest, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    /**
+     * Refresh tokens by token value, for /auth/refresh (RefreshTokenService).
+     * Invalidated on logout and eviction on this node; on other nodes a deleted token stays
+     * usable for at most the TTL, so keep it short.
+     */
+    @Bean
+    public Cache<String, RefreshToken> refreshTokenCache(MeterRegistry meterRegistry) {
+        Cache<String, RefreshToken> cache = Caffeine.newBuilder()
+                .maximumSize(refreshTokenCacheMaxSize)
+                .expireAfterWrite(refreshTokenCacheTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "refreshTokens");
+    }
+
+    /**
+     * Status of asynchronous image uploads by job id, see UploadJobService.
+     * Jobs are tiny and the upload executor's queue bounds how many can be live at once,
+     * so the size limit only guards against a flood of finished jobs within the TTL.
+     */
+    @Bean
+    public Cache<String, UploadJob> uploadJobCache(MeterRegistry meterRegistry) {
+        Cache<String, UploadJob> cache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(uploadJobTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "uploadJobs");
+    }
+
+    /**
+     * Bytes of small local images (thumbnails, mostly) by public id, for ImageController.
+     * Feed pages request the same few avatars over and over; serving them from memory skips
+     * the open/stat/sendfile round for each. Files never change once stored, so no TTL.
+     */
+    @Bean
+    public Cache<String, byte[]> imageBytesCache(MeterRegistry meterRegistry) {
+        Cache<String, byte[]> cache = Caffeine.newBuilder()
+                .maximumWeight(imageCacheMaxBytes)
+                .weigher((String publicId, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "imageBytes");
+    }
+
+    // Java strings cost roughly two bytes per char plus the object headers. contentHtml is about as
+    // large as content, so the derived fields count as much as the rest; list entries cost a few headers each.
+    private static int approximateSize(Blog blog) {
+        long chars = length(blog.getId()) + length(blog.getAuthorUsername()) + length(blog.getTopic())
+                + length(blog.getTitle()) + length(blog.getSubtitle()) + length(blog.getContent())
+                + length(blog.getContentHtml()) + length(blog.getExcerpt())
+                + length(blog.getImageUrl()) + length(blog.getImagePublicId());
+        long entries = 0;
+        if (blog.getToc() != null) {
+            for (TocEntry entry : blog.getToc()) {
+                chars += length(entry.getText()) + length(entry.getAnchor());
+                entries++;
+            }
+        }
+        if (blog.getImageVariants() != null) {
+            for (ImageVariant variant : blog.getImageVariants()) {
+                chars += length(variant.getName()) + length(variant.getContentType())
+                        + length(variant.getUrl()) + length(variant.getPublicId());
+                entries++;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, 256 + 2 * chars + 96 * entries);
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -2,6 +2,11 @@ package in.raghunath.blogapp.config;
 
 import in.raghunath.blogapp.filter.JwtAuthenticationFilter;
 import in.raghunath.blogapp.model.Role;
+import in.raghunath.blogapp.util.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,6 +23,12 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -37,11 +48,14 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF for stateless API
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**","/actuator/**","/swagger-ui/**","/v3/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/blogs", "/api/blogs/**","/api/users", "/api/users/**" ).permitAll()
+                        .requestMatchers(HttpMethod.GET, "/images/**").permitAll() // LocalImageStore files
+                        .requestMatchers(HttpMethod.GET, "/api/blogs", "/api/blogs/**","/api/users", "/api/users/**", "/api/topics" ).permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/blogs")
                         .hasAnyAuthority(Role.ROLE_USER.name(), Role.ROLE_ADMIN.name())
                         .requestMatchers(HttpMethod.PUT, "/api/blogs/**","/api/users/**").authenticated() // Allow if logged in
                         .requestMatchers(HttpMethod.DELETE, "/api/blogs/**").authenticated() // Allow if logged in
+                        .requestMatchers(HttpMethod.PATCH, "/api/blogs/**").authenticated() // Ownership checked by @PreAuthorize
+                        .requestMatchers(HttpMethod.POST, "/api/blogs/*/cover").authenticated() // Ownership checked by @PreAuthorize
                         .requestMatchers("/api/**").hasAuthority(Role.ROLE_ADMIN.name())
                         .anyRequest().authenticated()
                 )
@@ -51,9 +65,29 @@ public class SecurityConfig {
                 .build();
     }
 
+    // BCrypt on passwordHashingExecutor (see BoundedPasswordEncoder). Hashes made with a lower cost
+    // than app.security.bcrypt.strength are upgraded at the next successful login
+    // (MyUserDetailsService.updatePassword).
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength}") int strength,
+                                           @Qualifier("passwordHashingExecutor") ExecutorService passwordHashingExecutor,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), passwordHashingExecutor, meterRegistry);
+    }
+
+    /**
+     * One thread per core for password hashing, with a short queue: hashing is pure CPU, and a
+     * hash that would wait longer than a few hash times is better rejected (503). Published as
+     * executor.* meters with name=passwordHashing, including executor.queued for the queue depth.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public ExecutorService passwordHashingExecutor(MeterRegistry meterRegistry,
+                                                   @Value("${app.security.password-hashing.queue-capacity}") int queueCapacity) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadFactory threadFactory = Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
     }
 
     @Bean
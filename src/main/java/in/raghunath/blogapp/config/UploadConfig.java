@@ -0,0 +1,58 @@
+package in.raghunath.blogapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class UploadConfig {
+
+    @Value("${app.uploads.workers}")
+    private int workers;
+
+    @Value("${app.uploads.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Runs the storage side of image uploads (UploadJobService).
+     * Both the number of concurrent uploads and the backlog are bounded: once the queue is full
+     * submissions are rejected (AbortPolicy) and the client gets a 503 instead of the server
+     * piling up spooled files. Published as executor.* meters with name=imageUpload.
+     */
+    @Bean
+    public ExecutorService imageUploadExecutor(MeterRegistry meterRegistry) {
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("image-upload-", 0).factory()
+                : Thread.ofPlatform().name("image-upload-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "imageUpload");
+    }
+
+    /**
+     * Resizes and encodes image variants (ImageVariantService). This is CPU work, so one
+     * platform thread per core whatever the threading mode; the queue stays short because
+     * only upload workers feed it, a few sizes each. Published with name=imageVariant.
+     */
+    @Bean
+    public ExecutorService imageVariantExecutor(MeterRegistry meterRegistry,
+                                                @Value("${app.images.variants.workers:0}") int variantWorkers) {
+        int threads = variantWorkers > 0 ? variantWorkers : Runtime.getRuntime().availableProcessors();
+        ThreadFactory threadFactory = Thread.ofPlatform().name("image-variant-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "imageVariant");
+    }
+}
@@ -3,6 +3,7 @@ import in.raghunath.blogapp.DTO.ApiResponse;
 import in.raghunath.blogapp.DTO.AuthResponse;
 import in.raghunath.blogapp.DTO.LoginRequest;
 import in.raghunath.blogapp.DTO.SignupRequest;
+import in.raghunath.blogapp.exception.PasswordHashingCapacityException;
 import in.raghunath.blogapp.exception.TokenRefreshException;
 import in.raghunath.blogapp.model.RefreshToken;
 import in.raghunath.blogapp.service.AuthService;
@@ -44,6 +45,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.registerUser(signupRequest);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingCapacityException ex) {
+            throw ex; // 503 from GlobalExceptionHandler, not a bad request
         } catch (RuntimeException ex) {
             // Catch specific exceptions (e.g., UserAlreadyExists) if defined
             return ResponseEntity.badRequest().body(new AuthResponse(ex.getMessage(), null));
@@ -57,6 +60,8 @@ public class AuthController {
             return ResponseEntity.ok()
                     .header(HttpHeaders.SET_COOKIE, loginResult.cookie().toString())
                     .body(loginResult.authResponse());
+        } catch (PasswordHashingCapacityException ex) {
+            throw ex; // 503 from GlobalExceptionHandler, the credentials were never checked
         } catch (Exception ex) {
             return ResponseEntity.status(401).body(new ApiResponse(false,"Login failed: " + ex.getMessage()));
         }
@@ -68,8 +73,11 @@ public class AuthController {
         // 1. Extract Refresh Token from Cookie
         String refreshTokenValue = extractRefreshTokenFromCookie(request);
 
-        // 2. Invalidate the Refresh Token in the database via AuthService
-        authService.logoutUser(refreshTokenValue); // AuthService handles deletion and context clearing
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+
+        // 2. Invalidate the Refresh Token in the database and revoke the Access Token via AuthService
+        authService.logoutUser(refreshTokenValue, accessToken); // AuthService handles deletion and context clearing
 
         // 3. Create a cookie that instructs the browser to delete the refresh token cookie
         ResponseCookie clearCookie = ResponseCookie.from(refreshTokenCookieName, "") // Empty value
@@ -102,7 +110,7 @@ public class AuthController {
                     .orElseThrow(() -> new TokenRefreshException(refreshTokenValue, "Refresh token not found in database!"));
 
             // Generate a new Access Token
-            String newAccessToken = jwtUtil.generateAccessToken(refreshToken.getUsername());
+            String newAccessToken = authService.refreshAccessToken(refreshToken.getUsername());
 
             // Return the new Access Token
             return ResponseEntity.ok(new AuthResponse("Token refreshed successfully", newAccessToken));
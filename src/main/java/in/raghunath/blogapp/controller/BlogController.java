@@ -1,28 +1,67 @@
 package in.raghunath.blogapp.controller;
 
 import in.raghunath.blogapp.DTO.ApiResponse;
+import in.raghunath.blogapp.DTO.BlogPatch;
+import in.raghunath.blogapp.DTO.BlogSummary;
+import in.raghunath.blogapp.DTO.CursorPage;
+import in.raghunath.blogapp.DTO.ImportResult;
+import in.raghunath.blogapp.DTO.SearchResults;
+import in.raghunath.blogapp.DTO.UploadJob;
 import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.TopicCount;
 import in.raghunath.blogapp.model.User;
 import in.raghunath.blogapp.repo.BlogRepo;
+import in.raghunath.blogapp.service.BlogBodyService;
 import in.raghunath.blogapp.service.BlogService;
+import in.raghunath.blogapp.service.ExportService;
+import in.raghunath.blogapp.service.ImportService;
+import in.raghunath.blogapp.service.TopicCountService;
 import in.raghunath.blogapp.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 
 @RestController
 public class BlogController {
 
 
+    // Caches may keep these but have to revalidate every time, which the ETags make cheap.
+    // Without an explicit Cache-Control, Spring Security would send no-store.
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+
     private final BlogService blogService;
+    private final ExportService exportService;
+    private final ImportService importService;
+    private final BlogBodyService blogBodyService;
+    private final TopicCountService topicCountService;
 
-    public BlogController(BlogService blogService) {
+    public BlogController(BlogService blogService, ExportService exportService, ImportService importService,
+                          BlogBodyService blogBodyService, TopicCountService topicCountService) {
         this.blogService = blogService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.blogBodyService = blogBodyService;
+        this.topicCountService = topicCountService;
     }
 
     @PostMapping("/api/blogs")
@@ -34,50 +73,130 @@ public class BlogController {
 
     @GetMapping("/api/blogs/all")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<Blog>> getAllBlogs(){
-        return ResponseEntity.ok(blogService.getAllBlogs());
+    public ResponseEntity<CursorPage<BlogSummary>> getAllBlogs(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size){
+        return listing(blogService.getAllBlogs(cursor, size), REVALIDATE_PRIVATE);
+    }
+    // Full documents as NDJSON in _id order, resume with afterId = _id of the last line received
+    @GetMapping(value = "/api/blogs/export", produces = ExportService.NDJSON)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public WebAsyncTask<Void> exportBlogs(@RequestParam(required = false) String afterId,
+                                          @RequestParam(required = false) String beforeId,
+                                          HttpServletResponse response) {
+        return exportService.task(exportService.exportBlogs(afterId, beforeId), response);
+    }
+
+    // The export's format back in, read line by line and inserted in batches. Failed lines are reported, not fatal.
+    @PostMapping(value = "/api/blogs/import", consumes = ExportService.NDJSON)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> importBlogs(InputStream body) {
+        try {
+            ImportResult result = importService.importBlogs(body);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            // The client went away or sent a broken body, whatever was read before is imported
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Could not read the import body."));
+        }
     }
+
     @GetMapping("/api/blogs/unpublished/all")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<Blog>> getAllUnpublishedBlogs() {
-        List<Blog> unpublishedBlogs = blogService.getAllUnpublishedBlogsForAdmin();
-        return ResponseEntity.ok(unpublishedBlogs);
+    public ResponseEntity<CursorPage<BlogSummary>> getAllUnpublishedBlogs(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer size) {
+        CursorPage<BlogSummary> unpublishedBlogs = blogService.getAllUnpublishedBlogsForAdmin(cursor, size);
+        return listing(unpublishedBlogs, REVALIDATE_PRIVATE);
     }
 
     @GetMapping("/api/blogs/unpublished/my")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<Blog>> getMyUnpublishedBlogs() {
-        List<Blog> myUnpublishedBlogs = blogService.getMyUnpublishedBlogs();
-        return ResponseEntity.ok(myUnpublishedBlogs);
+    public ResponseEntity<CursorPage<BlogSummary>> getMyUnpublishedBlogs(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer size) {
+        CursorPage<BlogSummary> myUnpublishedBlogs = blogService.getMyUnpublishedBlogs(cursor, size);
+        return listing(myUnpublishedBlogs, REVALIDATE_PRIVATE);
     }
 
 
     @GetMapping("/api/blogs/user/{username}")
-    public ResponseEntity<List<Blog>> getAllPublishedBlogsByUsername(@PathVariable String username){ // Use @PathVariable
-        List<Blog> blogs = blogService.findBlogsByUsername(username);
-        return ResponseEntity.ok(blogs);
+    public ResponseEntity<CursorPage<BlogSummary>> getAllPublishedBlogsByUsername(@PathVariable String username, // Use @PathVariable
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer size){
+        CursorPage<BlogSummary> blogs = blogService.findBlogsByUsername(username, cursor, size);
+        return listing(blogs, REVALIDATE);
     }
 
     @GetMapping("/api/blogs")
-    public ResponseEntity<List<Blog>> getAllPublishedBlogs() {
-        return ResponseEntity.ok(blogService.getAllPublishedBlogs());
+    public ResponseEntity<CursorPage<BlogSummary>> getAllPublishedBlogs(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return listing(blogService.getAllPublishedBlogs(cursor, size), REVALIDATE);
     }
     @GetMapping("/api/blogs/topic/{topic}")
-    public ResponseEntity<List<Blog>> getPublishedBlogsByTopic(@PathVariable String topic){
-        List<Blog> blogs=blogService.findPublishedBlogsByTopic(topic);
-        return ResponseEntity.ok(blogs);
+    public ResponseEntity<CursorPage<BlogSummary>> getPublishedBlogsByTopic(@PathVariable String topic,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer size){
+        CursorPage<BlogSummary> blogs=blogService.findPublishedBlogsByTopic(topic, cursor, size);
+        return listing(blogs, REVALIDATE);
+    }
+
+    // Topics with their number of published blogs, read from the counters TopicCountService keeps
+    @GetMapping("/api/topics")
+    public ResponseEntity<List<TopicCount>> getTopics() {
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(topicCountService.getTopics());
     }
 
     @GetMapping(value = "/api/blogs/search",params = "search")
-    public ResponseEntity<List<Blog>> searchPublishedBlogs(@RequestParam("search") String searchQuery) {
-        List<Blog> blogs = blogService.searchPublishedBlogs(searchQuery);
+    public ResponseEntity<SearchResults> searchPublishedBlogs(@RequestParam("search") String searchQuery,
+                                                              @RequestParam(required = false) Integer page,
+                                                              @RequestParam(required = false) Integer size) {
+        SearchResults blogs = blogService.searchPublishedBlogs(searchQuery, page, size);
         return ResponseEntity.ok(blogs);
     }
 
+    // Revalidation (If-None-Match / If-Modified-Since) is answered from the version and updatedAt alone,
+    // a plain GET loads the blog once and takes them from it.
+    // Published blogs are then served as bytes serialised (and gzipped) once per version, see BlogBodyService.
+    // The gzipped bytes are a different representation, so they get their own strong ETag and either one revalidates.
     @GetMapping("/api/blogs/{id}")
-    public ResponseEntity<Blog> getBlogById(@PathVariable String id) {
-        Blog blog = blogService.getBlogById(id);
-        return ResponseEntity.ok(blog);
+    public ResponseEntity<?> getBlogById(@PathVariable String id, WebRequest request, HttpServletResponse servletResponse) {
+        Blog blog = null;
+        Blog stamp;
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            stamp = blogService.getBlogVersion(id);
+        } else {
+            blog = blogService.getBlogById(id);
+            stamp = blog;
+        }
+        boolean acceptsGzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String identityTag = etag(id, stamp.getVersion(), false);
+        String gzipTag = etag(id, stamp.getVersion(), true);
+        // Set before the check so a 304 carries it too
+        servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean revalidatesGzip = acceptsGzip && ifNoneMatch != null && ifNoneMatch.contains(gzipTag);
+        long lastModified = stamp.getUpdatedAt() == null ? -1 : stamp.getUpdatedAt().getTime();
+        if (request.checkNotModified(revalidatesGzip ? gzipTag : identityTag, lastModified)) {
+            return null; // 304, ETag and Last-Modified already set
+        }
+        BlogBodyService.Body body = blogBodyService.getIfCurrent(id, stamp.getVersion());
+        if (body == null) {
+            if (blog == null) {
+                blog = blogService.getBlogById(id);
+            }
+            if (!Boolean.TRUE.equals(blog.getIsPublished())) {
+                servletResponse.setHeader(HttpHeaders.ETAG, identityTag);
+                return ResponseEntity.ok().cacheControl(REVALIDATE).body(blog);
+            }
+            body = blogBodyService.serialize(blog);
+        }
+        // On the servlet response rather than the entity, which would add a second ETag header
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (body.gzipped() != null && acceptsGzip) {
+            servletResponse.setHeader(HttpHeaders.ETAG, gzipTag);
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzipped());
+        }
+        servletResponse.setHeader(HttpHeaders.ETAG, identityTag);
+        return response.body(body.json());
     }
 
     @PutMapping("/api/blogs/{id}")
@@ -86,11 +205,34 @@ public class BlogController {
         Blog updatedBlog = blogService.updateBlog(id, blogDetails);
         return ResponseEntity.ok(updatedBlog);
     }
+
+    @PatchMapping("/api/blogs/{id}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN') or @blogSecurityService.isOwner(#id, authentication.principal.username)")
+    public ResponseEntity<Blog> patchBlog(@PathVariable String id, @RequestBody BlogPatch patch) {
+        Blog patchedBlog = blogService.patchBlog(id, patch);
+        return ResponseEntity.ok(patchedBlog);
+    }
+
+    @PostMapping("/api/blogs/{id}/cover")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN') or @blogSecurityService.isOwner(#id, authentication.principal.username)")
+    public ResponseEntity<?> uploadCover(@PathVariable String id, @RequestParam("file") MultipartFile file) {
+        try {
+            // Same flow as profile photos: 202 now, poll the job for the outcome
+            UploadJob job = blogService.updateCover(id, file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/users/me/uploads/" + job.id()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, "Could not store the uploaded file."));
+        }
+    }
+
     @PutMapping("/api/blogs/toggleStatus/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN') or @blogSecurityService.isOwner(#id, principal.username)")
     public ResponseEntity<ApiResponse> togglePublishStatus(@PathVariable String id) {
-        blogService.togglePublishStatus(id);
-        String finalStatus = blogService.isPublished(id) ? "PUBLISHED" : "UNPUBLISHED";
+        String finalStatus = blogService.togglePublishStatus(id) ? "PUBLISHED" : "UNPUBLISHED";
         String successMessage = "Blog status successfully toggled to " + finalStatus + ".";
         ApiResponse response = new ApiResponse(true, successMessage);
 
@@ -105,5 +247,46 @@ public class BlogController {
         return ResponseEntity.noContent().build(); // Return 204 No Content
     }
 
+    // gzip listed and not refused with q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Strong: every write to a blog bumps its version (blogs from before versioning count as 0)
+    private static String etag(String id, Long version, boolean gzip) {
+        return "\"" + id + "-" + (version == null ? 0 : version) + (gzip ? "-gzip" : "") + "\"";
+    }
 
+    /**
+     * A page changes when one of its blogs is written (new version), added or removed, so its ETag
+     * is a hash of the ids, versions and next cursor. The summaries are a projection already;
+     * for a matching If-None-Match, Spring answers 304 from the ETag without serialising the body.
+     */
+    private static ResponseEntity<CursorPage<BlogSummary>> listing(CursorPage<BlogSummary> page, CacheControl cacheControl) {
+        MessageDigest digest = sha256();
+        for (BlogSummary summary : page.getItems()) {
+            digest.update((summary.id() + ":" + (summary.version() == null ? 0 : summary.version()) + ";")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(String.valueOf(page.getNext()).getBytes(StandardCharsets.UTF_8));
+        String etag = "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        return ResponseEntity.ok().cacheControl(cacheControl).eTag(etag).body(page);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JVM has it
+        }
+    }
 }
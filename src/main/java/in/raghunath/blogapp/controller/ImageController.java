@@ -0,0 +1,160 @@
+package in.raghunath.blogapp.controller;
+
+import in.raghunath.blogapp.service.LocalImageStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves LocalImageStore files without copying them through the JVM heap.
+ * Small files (thumbnails) are the exception: they are kept in imageBytesCache and written from memory.
+ * On Tomcat the body is handed to the connector's sendfile support (FileChannel.transferTo
+ * from the NIO poller); elsewhere it is transferTo'd into the response channel.
+ * A path never changes content, so responses carry its file name as a strong ETag and are cacheable forever.
+ * Supports conditional GET (If-None-Match) and single byte ranges (Range, If-Range).
+ */
+@RestController
+@ConditionalOnProperty(name = "app.images.store", havingValue = "local")
+public class ImageController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalImageStore imageStore;
+    private final Cache<String, byte[]> imageBytesCache;
+    private final String cacheControl;
+
+    // Files up to this size are served from imageBytesCache, larger ones always go zero-copy
+    @Value("${app.images.cache.max-file-bytes}")
+    private long maxCachedFileBytes;
+
+    public ImageController(LocalImageStore imageStore,
+                           @Qualifier("imageBytesCache") Cache<String, byte[]> imageBytesCache,
+                           @Value("${app.images.local.max-age:365d}") Duration maxAge) {
+        this.imageStore = imageStore;
+        this.imageBytesCache = imageBytesCache;
+        this.cacheControl = "public, max-age=" + maxAge.toSeconds() + ", immutable";
+    }
+
+    @GetMapping("/images/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String publicId = ((String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE))
+                .substring("/images/".length());
+        Optional<Path> image = imageStore.resolve(publicId);
+        if (image.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND); // not sendError, the /error dispatch is not public
+            return;
+        }
+        Path file = image.get();
+        String fileName = file.getFileName().toString();
+        String etag = "\"" + fileName.substring(0, fileName.indexOf('.')) + "\"";
+        long length = Files.size(file);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length; // exclusive
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multiple ranges would need a multipart body; ignoring Range and sending it all is allowed
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long first = range.getRangeStart(length);
+                long last = range.getRangeEnd(length);
+                if (length == 0 || first >= length || first > last) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = first;
+                end = last + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + length);
+            }
+        }
+
+        response.setContentType(LocalImageStore.contentTypeOf(fileName));
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod()) || end == start) {
+            return;
+        }
+
+        if (length <= maxCachedFileBytes) {
+            byte[] bytes = imageBytesCache.get(publicId, key -> readAllBytes(file));
+            response.getOutputStream().write(bytes, (int) start, (int) (end - start));
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself once this request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    private static byte[] readAllBytes(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
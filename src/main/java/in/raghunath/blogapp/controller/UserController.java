@@ -1,21 +1,28 @@
 package in.raghunath.blogapp.controller;
 
 import in.raghunath.blogapp.DTO.ApiResponse;
+import in.raghunath.blogapp.DTO.BulkUserResult;
 import in.raghunath.blogapp.DTO.SignupRequest;
+import in.raghunath.blogapp.DTO.UploadJob;
 import in.raghunath.blogapp.model.User;
 import in.raghunath.blogapp.service.AuthService;
+import in.raghunath.blogapp.service.ExportService;
+import in.raghunath.blogapp.service.UploadJobService;
 import in.raghunath.blogapp.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,9 +31,14 @@ public class UserController {
 
     private final  UserService userService;
     private final AuthService authService;
-    public UserController(UserService userService, AuthService authService) {
+    private final ExportService exportService;
+    private final UploadJobService uploadJobService;
+    public UserController(UserService userService, AuthService authService, ExportService exportService,
+                          UploadJobService uploadJobService) {
         this.userService = userService;
         this.authService = authService;
+        this.exportService = exportService;
+        this.uploadJobService = uploadJobService;
     }
 
     // Create a new user (sign up)
@@ -36,6 +48,18 @@ public class UserController {
         return ResponseEntity.ok(true);
     }
 
+    // Create many users in one request (admin provisioning), each one succeeds or fails on its own
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> createUsers(@RequestBody List<SignupRequest> signupRequests) {
+        try {
+            return ResponseEntity.ok(userService.provisionUsers(signupRequests));
+        } catch (IllegalArgumentException e) {
+            // Too many users in one request
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
     // Get all users
 
     @GetMapping
@@ -44,6 +68,15 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    // All users as NDJSON in _id order, streamed from a cursor. Resume with afterId.
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public WebAsyncTask<Void> exportUsers(@RequestParam(required = false) String afterId,
+                                          @RequestParam(required = false) String beforeId,
+                                          HttpServletResponse response) {
+        return exportService.task(exportService.exportUsers(afterId, beforeId), response);
+    }
+
     // Get user by username
     @GetMapping("/{username}")
     public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
@@ -68,29 +101,31 @@ public class UserController {
             @RequestParam("file") MultipartFile file) {
 
         try {
-            // Delegate the entire operation to the UserService
-            Map<String, String> result = userService.updateProfilePhoto( file);
-            // Return success response using the map returned by the service
-            return ResponseEntity.ok(Map.of(
-                    "message", "Profile photo uploaded successfully",
-                    "url", result.get("url"), // Get URL from service result
-                    "publicId", result.get("publicId") // Get publicId from service result
-            ));
+            // The file is only spooled here, the upload runs as a job the client can poll
+            UploadJob job = userService.updateProfilePhoto(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/users/me/profile-photo/jobs/" + job.id()))
+                    .body(job);
 
         } catch (UsernameNotFoundException e) {
             // Use ResponseStatusException for standard error handling or your ApiResponse
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
             // OR: return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, e.getMessage()));
         } catch (IllegalArgumentException e) {
-            // Handle invalid file type/size errors from ImageUploadService/UserService
+            // Handle invalid file type/size errors from UploadJobService
             return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
         } catch (IOException e) {
-            // Handle Cloudinary communication errors
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, "Error communicating with image storage service."));
-        } catch (Exception e) {
-            // Catch any other unexpected exceptions from the service layer
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, "An unexpected server error occurred."));
+            // Spooling the file to disk failed
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, "Could not store the uploaded file."));
         }
+        // UploadCapacityException (queue full) is answered with 503 by GlobalExceptionHandler
+    }
+
+    // Status of any upload job of the current user (profile photos, blog covers)
+    @GetMapping({"/me/uploads/{jobId}", "/me/profile-photo/jobs/{jobId}"})
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UploadJob> getUploadJob(@PathVariable String jobId, Authentication authentication) {
+        return ResponseEntity.ok(uploadJobService.getJob(jobId, authentication.getName()));
     }
 }
 
@@ -0,0 +1,37 @@
+package in.raghunath.blogapp.exception;
+
+import java.io.Serial;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A user insert hit the unique index on username or email (see User).
+ */
+public class DuplicateUserException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // E11000 duplicate key error collection: blogapp.users index: email dup key: { email: "a@b.c" }
+    private static final Pattern INDEX_NAME = Pattern.compile("index: (\\S+) dup key");
+
+    private final String field;
+
+    public DuplicateUserException(String field, String value) {
+        super(("email".equals(field) ? "Email" : "Username") + " already exists: " + value);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * The User field behind the violated index, from the server's error message. The indexes are
+     * the @Indexed defaults, named after their field; anything unrecognised is reported as username.
+     */
+    public static String fieldOf(String duplicateKeyMessage) {
+        Matcher matcher = INDEX_NAME.matcher(duplicateKeyMessage == null ? "" : duplicateKeyMessage);
+        return matcher.find() && matcher.group(1).startsWith("email") ? "email" : "username";
+    }
+}
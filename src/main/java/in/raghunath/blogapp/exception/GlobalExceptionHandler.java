@@ -5,6 +5,7 @@ import in.raghunath.blogapp.service.BlogService.ResourceNotFoundException; // Ma
 import in.raghunath.blogapp.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -39,6 +40,43 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        log.warn("Bad page cursor: {}", ex.getMessage());
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DuplicateUserException.class)
+    public ResponseEntity<ApiResponse> handleDuplicateUserException(DuplicateUserException ex, WebRequest request) {
+        log.info("Duplicate {}: {}", ex.getField(), ex.getMessage());
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ApiResponse> handleVersionConflictException(VersionConflictException ex, WebRequest request) {
+        log.info("Version conflict: {}", ex.getMessage());
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UploadCapacityException.class)
+    public ResponseEntity<ApiResponse> handleUploadCapacityException(UploadCapacityException ex, WebRequest request) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+
+    @ExceptionHandler(PasswordHashingCapacityException.class)
+    public ResponseEntity<ApiResponse> handlePasswordHashingCapacityException(PasswordHashingCapacityException ex, WebRequest request) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     // Handle other specific exceptions as needed (e.g., ValidationException)
 
     @ExceptionHandler(Exception.class) // Generic fallback handler
@@ -0,0 +1,13 @@
+package in.raghunath.blogapp.exception;
+
+import java.io.Serial;
+
+public class InvalidCursorException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String cursor) {
+        super(String.format("Invalid page cursor [%s]", cursor));
+    }
+}
@@ -0,0 +1,13 @@
+package in.raghunath.blogapp.exception;
+
+import java.io.Serial;
+
+public class PasswordHashingCapacityException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingCapacityException() {
+        super("Too many sign-ins in progress, please retry shortly");
+    }
+}
@@ -0,0 +1,13 @@
+package in.raghunath.blogapp.exception;
+
+import java.io.Serial;
+
+public class UploadCapacityException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public UploadCapacityException() {
+        super("Too many uploads in progress, please retry shortly");
+    }
+}
@@ -0,0 +1,13 @@
+package in.raghunath.blogapp.exception;
+
+import java.io.Serial;
+
+public class VersionConflictException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public VersionConflictException(String id, Long expectedVersion) {
+        super(String.format("Blog [%s] was modified concurrently, it is no longer at version %d", id, expectedVersion));
+    }
+}
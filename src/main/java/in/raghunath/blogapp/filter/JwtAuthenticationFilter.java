@@ -1,9 +1,13 @@
 package in.raghunath.blogapp.filter;
 
-import in.raghunath.blogapp.util.JwtUtil;
+import in.raghunath.blogapp.util.TokenRevocationList;
+import in.raghunath.blogapp.util.VerifiedToken;
+import in.raghunath.blogapp.util.VerifiedTokenCache;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -19,11 +23,24 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // Stateless, no need for a new one per request
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList revocationList;
     private final UserDetailsService userDetailsService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
+    // "token": trust the roles embedded in a verified access token, no DB round-trip per request.
+    // "database": load UserDetails (through its cache) so deletions take effect immediately.
+    @Value("${app.security.authentication-source:token}")
+    private String authenticationSource;
+
+    public JwtAuthenticationFilter(VerifiedTokenCache verifiedTokenCache, TokenRevocationList revocationList,
+                                   UserDetailsService userDetailsService) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationList = revocationList;
         this.userDetailsService = userDetailsService;
     }
 
@@ -34,45 +51,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String usernameFromToken = null; 
 
         // Typically the token is passed in the format "Bearer <token>"
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                usernameFromToken = jwtUtil.getUsernameFromToken(token); // Extract username from token
-            } catch (IllegalArgumentException e) {
-                // Log error if token is invalid/malformed - handled in JwtUtil now
-                logger.warn("Invalid JWT Token received: " + e.getMessage());
-            } catch (io.jsonwebtoken.ExpiredJwtException e) {
-                logger.warn("Expired JWT Token received: " + e.getMessage());
-            } // Catch other JWT exceptions from JwtUtil if needed
-
-            // If we got a username AND SecurityContext is empty (user not already authenticated)
-            if (usernameFromToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Load UserDetails from database ONLY if token is potentially valid
-                UserDetails userDetails = userDetailsService.loadUserByUsername(usernameFromToken);
-
-                // *** THE FIX IS HERE ***
-                // Validate the ACCESS token against the loaded UserDetails' username
-                if (jwtUtil.validateAccessToken(token, userDetails.getUsername())) {
-                    // If token is valid, create authentication token
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails, // Principal
-                                    null,        // Credentials (not needed for JWT)
-                                    userDetails.getAuthorities() // Authorities
-                            );
-
-                    // Set details (IP address, session ID if applicable)
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // Set the authentication in the SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.debug("Authentication successful for user: " + usernameFromToken); // Add logging
-                } else {
-                    logger.warn("JWT Token validation failed for user: " + usernameFromToken); // Add logging
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            // Only verify if the SecurityContext is empty (user not already authenticated)
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                VerifiedToken verifiedToken = verify(authHeader.substring(BEARER_PREFIX.length()));
+                if (verifiedToken != null) {
+                    authenticate(verifiedToken, request);
                 }
             }
         } else {
@@ -82,4 +68,51 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continue the filter chain
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Signature, expiry and claims in a single parse (or a cache hit); null if the token must be ignored.
+    // Revocation is checked after the cache, a token can be revoked while its claims are cached.
+    private VerifiedToken verify(String token) {
+        try {
+            VerifiedToken verifiedToken = verifiedTokenCache.verify(token);
+            if (revocationList.isRevoked(verifiedToken.tokenId(), verifiedToken.expiresAt())) {
+                logger.debug("Revoked JWT Token received for user: " + verifiedToken.username());
+                return null;
+            }
+            return verifiedToken;
+        } catch (IllegalArgumentException e) {
+            // Log error if token is invalid/malformed - handled in JwtUtil now
+            logger.warn("Invalid JWT Token received: " + e.getMessage());
+        } catch (io.jsonwebtoken.ExpiredJwtException e) {
+            logger.warn("Expired JWT Token received: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void authenticate(VerifiedToken verifiedToken, HttpServletRequest request) {
+        UserDetails userDetails = resolveUserDetails(verifiedToken);
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails, // Principal
+                        null,        // Credentials (not needed for JWT)
+                        userDetails.getAuthorities() // Authorities
+                );
+
+        // Set details (IP address, session ID if applicable)
+        authToken.setDetails(DETAILS_SOURCE.buildDetails(request));
+
+        // Set the authentication in the SecurityContext
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        logger.debug("Authentication successful for user: " + verifiedToken.username());
+    }
+
+    private UserDetails resolveUserDetails(VerifiedToken verifiedToken) {
+        if ("token".equals(authenticationSource) && verifiedToken.roles() != null) {
+            return User.withUsername(verifiedToken.username())
+                    .password("") // Never checked, the token itself is the credential
+                    .authorities(verifiedToken.roles().toArray(String[]::new))
+                    .build();
+        }
+        return userDetailsService.loadUserByUsername(verifiedToken.username());
+    }
+}
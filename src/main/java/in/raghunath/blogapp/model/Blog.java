@@ -4,15 +4,34 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "blogs")
+// One index per BlogRepo access path, each ending in the keyset order (createdAt, _id) desc
+// so listings are served straight from the index without an in-memory sort.
+@CompoundIndexes({
+        @CompoundIndex(name = "feed_idx", def = "{ 'isPublished': 1, 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "author_feed_idx", def = "{ 'authorUsername': 1, 'isPublished': 1, 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "topic_feed_idx", def = "{ 'topic': 1, 'isPublished': 1, 'createdAt': -1, '_id': -1 }",
+                collation = Blog.TOPIC_COLLATION),
+        @CompoundIndex(name = "all_feed_idx", def = "{ 'createdAt': -1, '_id': -1 }")
+})
 public class Blog {
+
+    // Case-insensitive topic matching. Queries must use the same collation to hit topic_feed_idx.
+    public static final String TOPIC_COLLATION = "{ 'locale': 'en', 'strength': 2 }";
+
     @Id
     private String id;
 
@@ -23,6 +42,16 @@ public class Blog {
 
     private String subtitle;
     private String content;
+
+    // Derived from content on every write by ContentRenderService, whatever a client sends for them
+    private String contentHtml;
+    private String excerpt;
+    private Integer wordCount;
+    private Integer readingTimeMinutes;
+    private List<TocEntry> toc = new ArrayList<>();
+    // ContentRenderService.VERSION that produced the fields above; ContentBackfillService re-renders older ones
+    @Indexed(name = "content_render_version_idx")
+    private Integer contentRenderVersion;
     private Boolean isPublished=false;
     @CreatedDate
     private Date createdAt;
@@ -32,4 +61,12 @@ public class Blog {
     private String imageUrl;
 
     private String imagePublicId;
+
+    // Resized copies of the cover, smallest first (ImageVariantService)
+    private List<ImageVariant> imageVariants = new ArrayList<>();
+
+    // Bumped by every write in BlogService. Documents written before this field existed
+    // have no version and are treated as version 0.
+    @Version
+    private Long version;
 }
@@ -0,0 +1,40 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Outbox entry: a stored image that must be deleted from the ImageStore, see ImageDeletionService.
+ * One entry per release, not per image: LocalImageStore counts references, so the same public id
+ * may legitimately be queued twice.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "image_deletions")
+public class ImageDeletion {
+
+    @Id
+    private String id;
+
+    private String publicId;
+
+    // Due entries are those with nextAttemptAt <= now. Claiming one pushes it a lease into the
+    // future, so an entry claimed by a node that died is simply picked up again later.
+    @Indexed
+    private Instant nextAttemptAt;
+
+    private String leaseOwner;
+
+    private int attempts;
+
+    private String lastError;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,22 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A resized, recompressed copy of an uploaded image, stored next to the original.
+ * name is the size class from app.images.variants (e.g. "thumb"), so clients pick by name.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageVariant {
+    private String name;
+    private int width;
+    private int height;
+    private String contentType;
+    private long sizeBytes;
+    private String url;
+    private String publicId;
+}
@@ -0,0 +1,26 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Cluster-wide lock for a scheduled job, see JobLockService. The id is the job name.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "job_locks")
+public class JobLock {
+
+    @Id
+    private String id;
+
+    private String owner;
+
+    private Instant lockedUntil;
+}
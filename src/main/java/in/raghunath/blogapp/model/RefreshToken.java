@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -14,6 +15,8 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "refresh_tokens") // Maps to the "refresh_tokens" collection
+// A user's tokens newest first, for the per-user cap in RefreshTokenService (also serves deleteByUsername)
+@CompoundIndex(name = "username_expiry_idx", def = "{ 'username': 1, 'expiry_date': -1 }")
 public class RefreshToken {
 
     @Id
@@ -23,11 +26,12 @@ public class RefreshToken {
     @Field("token")
     private String token;
 
-    @Indexed
     @Field("username")
     private String username;
 
+    // TTL index: MongoDB removes the document once this date has passed
+    @Indexed(name = "expiry_ttl_idx", expireAfter = "0s")
     @Field("expiry_date")
     private Instant expiryDate;
 
-}
\ No newline at end of file
+}
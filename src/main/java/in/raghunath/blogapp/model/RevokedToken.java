@@ -0,0 +1,33 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A revoked access token, by its jti. Shared between nodes through TokenRevocationService.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    private String id; // the token's jti
+
+    private String username;
+
+    // TTL index: once the token has expired its revocation is moot
+    @Indexed(name = "expires_ttl_idx", expireAfter = "0s")
+    private Instant expiresAt;
+
+    // Other nodes poll for revocations newer than their last poll
+    @Indexed
+    private Instant revokedAt;
+}
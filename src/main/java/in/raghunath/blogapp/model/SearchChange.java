@@ -0,0 +1,29 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A blog whose search entry changed (written, unpublished or deleted). Shared between nodes through
+ * SearchService, which re-reads the blog rather than trusting what the change says.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "search_changes")
+public class SearchChange {
+
+    @Id
+    private String id; // the blog's id, so repeated writes to a blog stay one document
+
+    // Other nodes poll for changes newer than their last poll. TTL index: a node that was away
+    // for longer than this rebuilds its index at startup anyway
+    @Indexed(name = "changed_ttl_idx", expireAfter = "1d")
+    private Instant changedAt;
+}
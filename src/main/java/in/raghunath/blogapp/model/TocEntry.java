@@ -0,0 +1,18 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A heading of a blog's content, in document order. anchor is the id the heading carries
+ * in Blog.contentHtml, so clients link to "#" + anchor.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TocEntry {
+    private int level;
+    private String text;
+    private String anchor;
+}
@@ -0,0 +1,29 @@
+package in.raghunath.blogapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Number of published blogs per topic, kept by TopicCountService. The id is the lower-cased topic,
+ * since topics match case-insensitively (Blog.TOPIC_COLLATION); name is the spelling first seen.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "topic_counts")
+public class TopicCount {
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private long publishedCount;
+
+    private Instant updatedAt;
+}
@@ -11,7 +11,9 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -40,5 +42,7 @@ public class User {
 
     private String profilePhotoPublicId; // Store this for deletion/updates
 
+    private List<ImageVariant> profilePhotoVariants = new ArrayList<>();
+
     private Set<Role> roles = new HashSet<>();
 }
\ No newline at end of file
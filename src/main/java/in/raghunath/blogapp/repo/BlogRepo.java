@@ -1,31 +1,101 @@
 package in.raghunath.blogapp.repo;
 
+import in.raghunath.blogapp.DTO.BlogSummary;
 import in.raghunath.blogapp.model.Blog;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BlogRepo extends MongoRepository<Blog,String> {
-    List<Blog> findByIsPublishedTrue();
+    // Fields of BlogSummary, listings never load the content body
+    String SUMMARY_FIELDS = """
+        {
+            'authorUsername': 1, 'topic': 1, 'title': 1, 'subtitle': 1, 'excerpt': 1, 'readingTimeMinutes': 1, 'isPublished': 1,
+            'createdAt': 1, 'updatedAt': 1, 'imageUrl': 1, 'imageVariants': 1, 'version': 1
+        }
+    """;
+
     Optional<Blog> findByIdAndIsPublishedTrue(String id);
-    List<Blog> findByIsPublishedFalse();
-    List<Blog> findByAuthorUsernameAndIsPublishedTrue(String username);
-    List<Blog> findByAuthorUsernameAndIsPublishedFalse(String username);
-    List<Blog> findByTopicIgnoreCaseAndIsPublishedTrue(String topic);
 
-    @Query("""
+    // Ownership checks only need the author, not the whole document
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'authorUsername': 1 }")
+    Optional<Blog> findAuthorById(String id);
+
+    // Conditional GETs only need what the ETag and Last-Modified are made of
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1, 'updatedAt': 1 }")
+    Optional<Blog> findVersionById(String id);
+
+    // --- Keyset pagination ---
+    // Listings are ordered by (createdAt, _id) descending. The first page uses the plain finder,
+    // following pages seek past the cursor of the previous page instead of skipping documents.
+    // The derived finders project to BlogSummary's fields from its constructor.
+
+    List<BlogSummary> findAllBy(Pageable pageable);
+    List<BlogSummary> findByIsPublishedTrue(Pageable pageable);
+    List<BlogSummary> findByIsPublishedFalse(Pageable pageable);
+    List<BlogSummary> findByAuthorUsernameAndIsPublishedTrue(String username, Pageable pageable);
+    List<BlogSummary> findByAuthorUsernameAndIsPublishedFalse(String username, Pageable pageable);
+
+    // Topic matching is case-insensitive through Blog.TOPIC_COLLATION rather than a regex,
+    // an 'i' regex cannot use the index.
+    @Query(value = "{ 'topic': ?0, 'isPublished': true }", fields = SUMMARY_FIELDS, collation = Blog.TOPIC_COLLATION)
+    List<BlogSummary> findPublishedByTopic(String topic, Pageable pageable);
+
+    @Query(value = "{ '$or': [ { 'createdAt': { '$lt': ?0 } }, { 'createdAt': ?0, '_id': { '$lt': ?1 } } ] }", fields = SUMMARY_FIELDS)
+    List<BlogSummary> findAllAfter(Date createdAt, ObjectId id, Pageable pageable);
+
+    @Query(value = """
+        {
+            'isPublished': true,
+            '$or': [ { 'createdAt': { '$lt': ?0 } }, { 'createdAt': ?0, '_id': { '$lt': ?1 } } ]
+        }
+    """, fields = SUMMARY_FIELDS)
+    List<BlogSummary> findPublishedAfter(Date createdAt, ObjectId id, Pageable pageable);
+
+    @Query(value = """
+        {
+            'isPublished': false,
+            '$or': [ { 'createdAt': { '$lt': ?0 } }, { 'createdAt': ?0, '_id': { '$lt': ?1 } } ]
+        }
+    """, fields = SUMMARY_FIELDS)
+    List<BlogSummary> findUnpublishedAfter(Date createdAt, ObjectId id, Pageable pageable);
+
+    @Query(value = """
+        {
+            'authorUsername': ?0,
+            'isPublished': true,
+            '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ]
+        }
+    """, fields = SUMMARY_FIELDS)
+    List<BlogSummary> findPublishedByAuthorAfter(String username, Date createdAt, ObjectId id, Pageable pageable);
+
+    @Query(value = """
+        {
+            'authorUsername': ?0,
+            'isPublished': false,
+            '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ]
+        }
+    """, fields = SUMMARY_FIELDS)
+    List<BlogSummary> findUnpublishedByAuthorAfter(String username, Date createdAt, ObjectId id, Pageable pageable);
+
+    @Query(value = """
         {
+            'topic': ?0,
             'isPublished': true,
-            '$or': [
-                { 'title':    { '$regex': ?0, '$options': 'i' } },
-                { 'subtitle': { '$regex': ?0, '$options': 'i' } },
-                { 'topic':    { '$regex': ?0, '$options': 'i' } }
-            ]
+            '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ]
         }
-    """)
-    List<Blog> searchPublishedBlogs(String searchTerm);
+    """, fields = SUMMARY_FIELDS, collation = Blog.TOPIC_COLLATION)
+    List<BlogSummary> findPublishedByTopicAfter(String topic, Date createdAt, ObjectId id, Pageable pageable);
+
+    // Content bodies for the blogs on one page of search results, to cut snippets from, and whether they are still published
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'content': 1, 'isPublished': 1 }")
+    List<Blog> findContentByIdIn(Collection<String> ids);
 }
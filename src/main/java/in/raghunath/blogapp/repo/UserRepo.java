@@ -10,6 +10,8 @@ import java.util.Optional;
 public interface UserRepo extends MongoRepository<User, String> {
     Optional<User> findByUsername(String username);
 
+    boolean existsByUsername(String username);
+
     // Add this method definition:
     Optional<User> findByEmail(String email); // <--- ADD THIS LINE
 
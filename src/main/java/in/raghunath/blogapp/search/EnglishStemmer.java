@@ -0,0 +1,187 @@
+package in.raghunath.blogapp.search;
+
+/**
+ * Light English stemmer: steps 1-3 and 5a of the Porter algorithm.
+ * Folds plurals, -ed/-ing forms and the common derivational suffixes
+ * ("publishing", "published", "publishes" -> "publish") without the aggressive
+ * step 4 truncation that makes snippets and debugging harder to follow.
+ * Stateless and thread-safe.
+ */
+public final class EnglishStemmer {
+
+    private static final String[][] STEP2 = {
+            {"ational", "ate"}, {"tional", "tion"}, {"enci", "ence"}, {"anci", "ance"},
+            {"izer", "ize"}, {"abli", "able"}, {"alli", "al"}, {"entli", "ent"},
+            {"eli", "e"}, {"ousli", "ous"}, {"ization", "ize"}, {"ation", "ate"},
+            {"ator", "ate"}, {"alism", "al"}, {"iveness", "ive"}, {"fulness", "ful"},
+            {"ousness", "ous"}, {"aliti", "al"}, {"iviti", "ive"}, {"biliti", "ble"}
+    };
+
+    private static final String[][] STEP3 = {
+            {"icate", "ic"}, {"ative", ""}, {"alize", "al"}, {"iciti", "ic"},
+            {"ical", "ic"}, {"ful", ""}, {"ness", ""}
+    };
+
+    private EnglishStemmer() {
+    }
+
+    public static String stem(String word) {
+        if (word.length() <= 3) {
+            return word;
+        }
+        StringBuilder w = new StringBuilder(word);
+        step1a(w);
+        step1b(w);
+        step1c(w);
+        replaceSuffix(w, STEP2);
+        replaceSuffix(w, STEP3);
+        step5a(w);
+        return w.toString();
+    }
+
+    private static void step1a(StringBuilder w) {
+        if (endsWith(w, "sses")) {
+            w.setLength(w.length() - 2);
+        } else if (endsWith(w, "ies")) {
+            w.setLength(w.length() - 2);
+        } else if (!endsWith(w, "ss") && endsWith(w, "s")) {
+            w.setLength(w.length() - 1);
+        }
+    }
+
+    private static void step1b(StringBuilder w) {
+        if (endsWith(w, "eed")) {
+            if (measure(w, w.length() - 3) > 0) {
+                w.setLength(w.length() - 1);
+            }
+            return;
+        }
+        int stemLength;
+        if (endsWith(w, "ed")) {
+            stemLength = w.length() - 2;
+        } else if (endsWith(w, "ing")) {
+            stemLength = w.length() - 3;
+        } else {
+            return;
+        }
+        if (!containsVowel(w, stemLength)) {
+            return;
+        }
+        w.setLength(stemLength);
+        if (endsWith(w, "at") || endsWith(w, "bl") || endsWith(w, "iz")) {
+            w.append('e');
+        } else if (endsWithDoubleConsonant(w)) {
+            char last = w.charAt(w.length() - 1);
+            if (last != 'l' && last != 's' && last != 'z') {
+                w.setLength(w.length() - 1);
+            }
+        } else if (measure(w, w.length()) == 1 && endsWithCvc(w)) {
+            w.append('e');
+        }
+    }
+
+    private static void step1c(StringBuilder w) {
+        if (endsWith(w, "y") && containsVowel(w, w.length() - 1)) {
+            w.setCharAt(w.length() - 1, 'i');
+        }
+    }
+
+    // Drops a final 'e' ("publishe" -> "publish") unless the stem is a short cvc word ("hope")
+    private static void step5a(StringBuilder w) {
+        if (!endsWith(w, "e")) {
+            return;
+        }
+        int stemLength = w.length() - 1;
+        int m = measure(w, stemLength);
+        if (m > 1) {
+            w.setLength(stemLength);
+        } else if (m == 1) {
+            w.setLength(stemLength);
+            if (endsWithCvc(w)) {
+                w.append('e');
+            }
+        }
+    }
+
+    private static void replaceSuffix(StringBuilder w, String[][] rules) {
+        for (String[] rule : rules) {
+            if (endsWith(w, rule[0])) {
+                int stemLength = w.length() - rule[0].length();
+                if (measure(w, stemLength) > 0) {
+                    w.setLength(stemLength);
+                    w.append(rule[1]);
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean endsWith(StringBuilder w, String suffix) {
+        int offset = w.length() - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (w.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConsonant(StringBuilder w, int i) {
+        switch (w.charAt(i)) {
+            case 'a', 'e', 'i', 'o', 'u':
+                return false;
+            case 'y':
+                return i == 0 || !isConsonant(w, i - 1);
+            default:
+                return true;
+        }
+    }
+
+    // Number of vowel-consonant sequences in w[0, end), the "m" of the Porter paper
+    private static int measure(StringBuilder w, int end) {
+        int m = 0;
+        int i = 0;
+        while (i < end && isConsonant(w, i)) {
+            i++;
+        }
+        while (i < end) {
+            while (i < end && !isConsonant(w, i)) {
+                i++;
+            }
+            if (i >= end) {
+                break;
+            }
+            m++;
+            while (i < end && isConsonant(w, i)) {
+                i++;
+            }
+        }
+        return m;
+    }
+
+    private static boolean containsVowel(StringBuilder w, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!isConsonant(w, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithDoubleConsonant(StringBuilder w) {
+        int n = w.length();
+        return n >= 2 && w.charAt(n - 1) == w.charAt(n - 2) && isConsonant(w, n - 1);
+    }
+
+    private static boolean endsWithCvc(StringBuilder w) {
+        int n = w.length();
+        if (n < 3 || !isConsonant(w, n - 1) || isConsonant(w, n - 2) || !isConsonant(w, n - 3)) {
+            return false;
+        }
+        char last = w.charAt(n - 1);
+        return last != 'w' && last != 'x' && last != 'y';
+    }
+}
@@ -0,0 +1,188 @@
+package in.raghunath.blogapp.search;
+
+import in.raghunath.blogapp.DTO.BlogSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over blog fields, ranked with BM25F.
+ * Each field keeps its own term frequencies and length normalisation and is weighted
+ * before saturation, so a match in the title counts more than one buried in the content.
+ * Reads share a read lock, so queries only wait for the (rare) writes.
+ */
+public class InvertedIndex {
+
+    public enum Field {
+        TITLE(3.0), SUBTITLE(2.0), TOPIC(2.0), CONTENT(1.0);
+
+        final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int FIELD_COUNT = Field.values().length;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public record Hit(BlogSummary summary, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private record Doc(BlogSummary summary, int[] fieldLengths, Set<String> terms) {
+    }
+
+    // term -> (doc id -> term frequency per field)
+    private final Map<String, Map<String, int[]>> postings = new HashMap<>();
+    private final Map<String, Doc> docs = new HashMap<>();
+    private final long[] totalFieldLengths = new long[FIELD_COUNT];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds or replaces a document. fieldTexts is indexed by {@link Field#ordinal()}.
+     */
+    public void put(BlogSummary summary, String[] fieldTexts) {
+        // Analyse outside the lock, it is the expensive part
+        int[] fieldLengths = new int[FIELD_COUNT];
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (Field field : Field.values()) {
+            List<String> terms = TextAnalyzer.terms(fieldTexts[field.ordinal()]);
+            fieldLengths[field.ordinal()] = terms.size();
+            for (String term : terms) {
+                frequencies.computeIfAbsent(term, t -> new int[FIELD_COUNT])[field.ordinal()]++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(summary.id());
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(summary.id(), entry.getValue());
+            }
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                totalFieldLengths[f] += fieldLengths[f];
+            }
+            docs.put(summary.id(), new Doc(summary, fieldLengths, frequencies.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks every document containing at least one of the query terms and returns
+     * the best {@code limit} of them, best first, plus the total number of matches.
+     */
+    public Result search(List<String> queryTerms, int limit) {
+        Set<String> terms = new LinkedHashSet<>(queryTerms);
+        lock.readLock().lock();
+        try {
+            int docCount = docs.size();
+            if (docCount == 0 || terms.isEmpty()) {
+                return new Result(List.of(), 0);
+            }
+            double[] avgFieldLengths = new double[FIELD_COUNT];
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                avgFieldLengths[f] = Math.max(1.0, (double) totalFieldLengths[f] / docCount);
+            }
+
+            Map<String, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<String, int[]> docsWithTerm = postings.get(term);
+                if (docsWithTerm == null) {
+                    continue;
+                }
+                int df = docsWithTerm.size();
+                double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<String, int[]> posting : docsWithTerm.entrySet()) {
+                    int[] fieldLengths = docs.get(posting.getKey()).fieldLengths();
+                    double tf = weightedTermFrequency(posting.getValue(), fieldLengths, avgFieldLengths);
+                    scores.merge(posting.getKey(), idf * tf / (K1 + tf), Double::sum);
+                }
+            }
+
+            // Keep only the best `limit` in a min-heap instead of sorting every match
+            Comparator<Map.Entry<String, Double>> byScore = Map.Entry.comparingByValue();
+            PriorityQueue<Map.Entry<String, Double>> best = new PriorityQueue<>(byScore);
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                if (best.size() < limit) {
+                    best.add(entry);
+                } else if (limit > 0 && entry.getValue() > best.peek().getValue()) {
+                    best.poll();
+                    best.add(entry);
+                }
+            }
+            // The heap drains worst first
+            List<Hit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Map.Entry<String, Double> entry = best.poll();
+                hits.add(new Hit(docs.get(entry.getKey()).summary(), entry.getValue()));
+            }
+            Collections.reverse(hits);
+            return new Result(hits, scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double weightedTermFrequency(int[] frequencies, int[] fieldLengths, double[] avgFieldLengths) {
+        double tf = 0;
+        for (Field field : Field.values()) {
+            int f = field.ordinal();
+            if (frequencies[f] > 0) {
+                double norm = 1 - B + B * fieldLengths[f] / avgFieldLengths[f];
+                tf += field.weight * frequencies[f] / norm;
+            }
+        }
+        return tf;
+    }
+
+    private void removeLocked(String id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms()) {
+            Map<String, int[]> docsWithTerm = postings.get(term);
+            if (docsWithTerm != null) {
+                docsWithTerm.remove(id);
+                if (docsWithTerm.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            totalFieldLengths[f] -= doc.fieldLengths()[f];
+        }
+    }
+}
@@ -3,20 +3,24 @@ package in.raghunath.blogapp.service;
 import in.raghunath.blogapp.DTO.AuthResponse;
 import in.raghunath.blogapp.DTO.LoginRequest;
 import in.raghunath.blogapp.DTO.SignupRequest;
+import in.raghunath.blogapp.exception.DuplicateUserException;
 import in.raghunath.blogapp.model.RefreshToken; // Import RefreshToken
 import in.raghunath.blogapp.model.Role;
 import in.raghunath.blogapp.model.User;
 import in.raghunath.blogapp.repo.UserRepo;
 import in.raghunath.blogapp.util.JwtUtil;
+import in.raghunath.blogapp.util.VerifiedTokenCache;
+import io.jsonwebtoken.ExpiredJwtException;
 import org.springframework.beans.factory.annotation.Value; // Import Value
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseCookie; // Import ResponseCookie
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication; // Import Authentication
 import org.springframework.security.core.context.SecurityContextHolder; // Import SecurityContextHolder
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional; // Optional: for signup atomicity
 
 import java.util.Set;
 
@@ -28,6 +32,9 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final RefreshTokenService refreshTokenService;
+    private final MyUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationService tokenRevocationService;
 
     @Value("${app.jwt.refresh-cookie-name}")
     private String refreshTokenCookieName;
@@ -39,29 +46,34 @@ public class AuthService {
                        PasswordEncoder passwordEncoder,
                        JwtUtil jwtUtil,
                        AuthenticationManager authenticationManager,
-                       RefreshTokenService refreshTokenService) {
+                       RefreshTokenService refreshTokenService,
+                       MyUserDetailsService userDetailsService,
+                       VerifiedTokenCache verifiedTokenCache,
+                       TokenRevocationService tokenRevocationService) {
         this.userRepo = userRepo;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
         this.refreshTokenService = refreshTokenService; // Assign injected service
+        this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
-    @Transactional
+    // A single insert: the unique indexes on username and email reject duplicates, even concurrent ones
     public AuthResponse registerUser(SignupRequest signupRequest) {
-        if (userRepo.findByUsername(signupRequest.getUsername()).isPresent()) {
-            throw new RuntimeException("Username already exists: " + signupRequest.getUsername());
-        }
-        if (userRepo.findByEmail(signupRequest.getEmail()).isPresent()) {
-            throw new RuntimeException("Email already exists: " + signupRequest.getEmail());
-        }
-
         User user = new User();
         user.setUsername(signupRequest.getUsername());
         user.setPassword(passwordEncoder.encode(signupRequest.getPassword()));
         user.setEmail(signupRequest.getEmail());
         user.setRoles(Set.of(Role.ROLE_USER));
-        userRepo.save(user);
+        try {
+            userRepo.insert(user);
+        } catch (DuplicateKeyException e) {
+            String field = DuplicateUserException.fieldOf(e.getMessage());
+            throw new DuplicateUserException(field,
+                    "email".equals(field) ? signupRequest.getEmail() : signupRequest.getUsername());
+        }
         return new AuthResponse("Registration successful. Please login.", null);
     }
 
@@ -74,7 +86,7 @@ public class AuthService {
         );
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String username = authentication.getName();
-        String accessToken = jwtUtil.generateAccessToken(username);
+        String accessToken = jwtUtil.generateAccessToken(username, authentication.getAuthorities());
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(username);
         // Create HttpOnly cookie for the Refresh Token
         ResponseCookie refreshTokenCookie = ResponseCookie
@@ -90,10 +102,23 @@ public class AuthService {
         return new LoginResult(new AuthResponse("Login successful", accessToken), refreshTokenCookie);
     }
 
-    public void logoutUser(String refreshTokenValue) {
+    // Roles are re-read on every refresh, so role changes reach clients within one access-token lifetime
+    public String refreshAccessToken(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return jwtUtil.generateAccessToken(userDetails.getUsername(), userDetails.getAuthorities());
+    }
+
+    public void logoutUser(String refreshTokenValue, String accessToken) {
         if (refreshTokenValue != null) {
             refreshTokenService.deleteByToken(refreshTokenValue);
-            //Blacklist the current Access Token if needed (advanced) :To be done later
+        }
+        // Revoke the access token too, otherwise it stays valid until it expires
+        if (accessToken != null) {
+            try {
+                tokenRevocationService.revoke(verifiedTokenCache.verify(accessToken));
+            } catch (IllegalArgumentException | ExpiredJwtException e) {
+                // Invalid or already expired, nothing to revoke
+            }
         }
         SecurityContextHolder.clearContext();
     }
@@ -0,0 +1,82 @@
+package in.raghunath.blogapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import in.raghunath.blogapp.model.Blog;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response bodies of published blogs for GET /api/blogs/{id}, serialised once and gzipped once per
+ * version, so serving a hot post is a copy of bytes instead of a Jackson run over its content.
+ * Entries carry the version they were made from and only count for that version; BlogService
+ * also invalidates them on every write.
+ */
+@Service
+public class BlogBodyService {
+
+    /**
+     * @param gzipped null when the JSON is too small for compression to be worth it
+     */
+    public record Body(Long version, byte[] json, byte[] gzipped) {
+    }
+
+    private final Cache<String, Body> blogBodyCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cache.blog-bodies.gzip-min-bytes}")
+    private int gzipMinBytes;
+
+    public BlogBodyService(@Qualifier("blogBodyCache") Cache<String, Body> blogBodyCache, ObjectMapper objectMapper) {
+        this.blogBodyCache = blogBodyCache;
+        this.objectMapper = objectMapper;
+    }
+
+    // The cached body, if it was made from this version
+    public Body getIfCurrent(String id, Long version) {
+        Body body = blogBodyCache.getIfPresent(id);
+        return body != null && Objects.equals(body.version(), version) ? body : null;
+    }
+
+    // Serialises and caches a published blog; unpublished ones are never cached
+    public Body serialize(Blog blog) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(blog);
+            Body body = new Body(blog.getVersion(), json, json.length < gzipMinBytes ? null : gzip(json));
+            if (Boolean.TRUE.equals(blog.getIsPublished())) {
+                blogBodyCache.put(blog.getId(), body);
+            }
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise blog " + blog.getId(), e);
+        }
+    }
+
+    public void invalidate(String id) {
+        blogBodyCache.invalidate(id);
+    }
+
+    // Paid once per version, so the best compression is worth its extra CPU
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in memory, does not happen
+        }
+        return out.toByteArray();
+    }
+}
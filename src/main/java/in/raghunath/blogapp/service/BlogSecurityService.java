@@ -30,7 +30,7 @@ public class BlogSecurityService {
             return false;
         }
 
-        Blog blog = blogRepository.findById(blogId)
+        Blog blog = blogRepository.findAuthorById(blogId)
                 .orElseThrow(() -> {
                     log.warn("Blog not found with id: {} for ownership check", blogId);
                     return new BlogService.ResourceNotFoundException("Blog not found with id: " + blogId + " for ownership check");
@@ -1,30 +1,100 @@
 package in.raghunath.blogapp.service;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.mongodb.lang.Nullable;
+import in.raghunath.blogapp.DTO.BlogPatch;
+import in.raghunath.blogapp.DTO.BlogSummary;
+import in.raghunath.blogapp.DTO.CursorPage;
+import in.raghunath.blogapp.DTO.SearchResults;
+import in.raghunath.blogapp.DTO.UploadJob;
+import in.raghunath.blogapp.exception.VersionConflictException;
 import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.ImageVariant;
 import in.raghunath.blogapp.model.User;
 import in.raghunath.blogapp.repo.BlogRepo;
+import in.raghunath.blogapp.util.BlogCursor;
 import jakarta.validation.constraints.Null;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.BooleanOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class BlogService {
 
+    // Keyset order shared by every listing, must match the seek queries in BlogRepo
+    private static final Sort FEED_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
     @Autowired
     BlogRepo blogRepo;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    SearchService searchService;
+
+    @Autowired
+    UploadJobService uploadJobService;
+
+    @Autowired
+    ImageDeletionService imageDeletionService;
+
+    // Read-through cache for getBlogById, every write below must invalidate its entry
+    @Autowired
+    @Qualifier("blogCache")
+    Cache<String, Blog> blogCache;
+
+    @Autowired
+    ContentRenderService contentRenderService;
+
+    // Serialised response bodies, invalidated alongside blogCache
+    @Autowired
+    BlogBodyService blogBodyService;
+
+    // Published counts per topic, adjusted after every write that changes them
+    @Autowired
+    TopicCountService topicCountService;
+
+    @Value("${app.blogs.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.blogs.page.max-size:100}")
+    private int maxPageSize;
+
     private String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
@@ -45,77 +115,279 @@ public class BlogService {
         blog.setCreatedAt(new Date());
         blog.setUpdatedAt(new Date());
         blog.setIsPublished(true);
-        return blogRepo.save(blog);
+        // Server-assigned: a client-supplied id would collide with an existing blog (DuplicateKeyException),
+        // and a version would turn the insert into an update
+        blog.setId(null);
+        blog.setVersion(null);
+        contentRenderService.renderInto(blog);
+        Blog savedBlog = blogRepo.save(blog);
+        searchService.index(savedBlog);
+        topicCountService.published(savedBlog.getTopic());
+        return savedBlog;
 
     }
 
-    public List<Blog> getAllBlogs() {
-        return blogRepo.findAll();
+    public CursorPage<BlogSummary> getAllBlogs(String cursor, Integer size) {
+        return page(cursor, size,
+                blogRepo::findAllBy,
+                (after, pageable) -> blogRepo.findAllAfter(after.createdAt(), after.id(), pageable));
     }
 
-    public List<Blog> getAllPublishedBlogs(){
-        return blogRepo.findByIsPublishedTrue();
+    public CursorPage<BlogSummary> getAllPublishedBlogs(String cursor, Integer size){
+        return page(cursor, size,
+                blogRepo::findByIsPublishedTrue,
+                (after, pageable) -> blogRepo.findPublishedAfter(after.createdAt(), after.id(), pageable));
     }
 
-    public List<Blog> findBlogsByUsername(String username){
-        return blogRepo.findByAuthorUsernameAndIsPublishedTrue(username);
+    public CursorPage<BlogSummary> findBlogsByUsername(String username, String cursor, Integer size){
+        return page(cursor, size,
+                pageable -> blogRepo.findByAuthorUsernameAndIsPublishedTrue(username, pageable),
+                (after, pageable) -> blogRepo.findPublishedByAuthorAfter(username, after.createdAt(), after.id(), pageable));
     }
 
-    public List<Blog> findPublishedBlogsByTopic(String topic){
+    public CursorPage<BlogSummary> findPublishedBlogsByTopic(String topic, String cursor, Integer size){
         if(topic==null || topic.trim().isEmpty()){
-            return Collections.emptyList();
+            return new CursorPage<>(Collections.emptyList(), null);
         }
-        return blogRepo.findByTopicIgnoreCaseAndIsPublishedTrue(topic.trim());
+        String trimmedTopic = topic.trim();
+        return page(cursor, size,
+                pageable -> blogRepo.findPublishedByTopic(trimmedTopic, pageable),
+                (after, pageable) -> blogRepo.findPublishedByTopicAfter(trimmedTopic, after.createdAt(), after.id(), pageable));
     }
 
     public Blog getBlogById(String id) {
-        return blogRepo.findById(id)
-                .orElseThrow(() -> new
-                        ResourceNotFoundException("Blog not found with id: " + id)); // Use a custom exception
+        // Misses are not cached, so a blog created later is found straight away
+        Blog blog = blogCache.get(id, key -> blogRepo.findById(key).orElse(null));
+        if (blog == null) {
+            throw new ResourceNotFoundException("Blog not found with id: " + id); // Use a custom exception
+        }
+        return blog;
     }
 
-    public List<Blog> searchPublishedBlogs(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * The id, version and updatedAt of a blog, enough to answer a conditional GET without the content.
+     * Comes from the cache when the blog is in it, otherwise from a projection on the _id index.
+     */
+    public Blog getBlogVersion(String id) {
+        Blog cached = blogCache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
         }
-        String trimmedQuery = query.trim();
-        return blogRepo.searchPublishedBlogs(trimmedQuery);
+        return blogRepo.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Blog not found with id: " + id));
     }
 
+    public SearchResults searchPublishedBlogs(String query, Integer page, Integer size) {
+        return searchService.search(query, page, size);
+    }
+
+    // Writes below are a single round-trip each: the change is applied in Mongo and the
+    // resulting document (if any) comes back with it, nothing is loaded first.
+    // Each one bumps Blog.version, see applyUpdate for the optimistic concurrency check.
     public Blog updateBlog(String id, Blog blogDetails){
-        Blog existingBlog=getBlogById(id);
-        existingBlog.setTitle(blogDetails.getTitle());
-        existingBlog.setSubtitle(blogDetails.getSubtitle());
-        existingBlog.setContent(blogDetails.getContent());
-        existingBlog.setTopic(blogDetails.getTopic());
-        existingBlog.setUpdatedAt(new Date());
-        return blogRepo.save(existingBlog);
+        Update update = new Update()
+                .set("title", blogDetails.getTitle())
+                .set("subtitle", blogDetails.getSubtitle())
+                .set("content", blogDetails.getContent())
+                .set("topic", blogDetails.getTopic());
+        contentRenderService.renderInto(update, blogDetails.getContent());
+        return applyUpdate(id, update, blogDetails.getVersion());
     }
 
-    public void togglePublishStatus(String id){
-        Blog existingBlog=getBlogById(id);
-        existingBlog.setIsPublished(!existingBlog.getIsPublished());
-        blogRepo.save(existingBlog);
+    // Only the fields present in the patch are written, an unchanged content body is never sent back
+    public Blog patchBlog(String id, BlogPatch patch) {
+        Update update = new Update();
+        if (patch.getTitle() != null) {
+            update.set("title", patch.getTitle());
+        }
+        if (patch.getSubtitle() != null) {
+            update.set("subtitle", patch.getSubtitle());
+        }
+        if (patch.getContent() != null) {
+            update.set("content", patch.getContent());
+            contentRenderService.renderInto(update, patch.getContent());
+        }
+        if (patch.getTopic() != null) {
+            update.set("topic", patch.getTopic());
+        }
+        return applyUpdate(id, update, patch.getVersion());
     }
 
-    public boolean isPublished(String id){
-        Blog blog=getBlogById(id);
-        return blog.getIsPublished();
+    /**
+     * Applies a $set update guarded by the version the client last read (if it sent one).
+     * A miss is then either a missing blog (404) or a concurrent edit (409), which costs
+     * one extra existence check, but only on the failure path.
+     * The write returns the blog as it was, which has the topic it replaced for the topic counts;
+     * the new state is that with the $set values applied, like attachCover does, so nothing is read back.
+     */
+    private Blog applyUpdate(String id, Update update, Long expectedVersion) {
+        update.set("updatedAt", new Date()).inc("version", 1);
+        Blog previous = mongoTemplate.findAndModify(query(versionedId(id, expectedVersion)), update, Blog.class);
+        if (previous == null) {
+            if (expectedVersion != null && blogRepo.existsById(id)) {
+                throw new VersionConflictException(id, expectedVersion);
+            }
+            throw new ResourceNotFoundException("Blog not found with id: " + id);
+        }
+        Blog savedBlog = applied(previous, update.getUpdateObject().get("$set", Document.class));
+        if (Boolean.TRUE.equals(previous.getIsPublished()) && update.modifies("topic")) {
+            topicCountService.moved(previous.getTopic(), savedBlog.getTopic());
+        }
+        // Invalidate after the write, a concurrent read-through can then only cache the new state
+        blogCache.invalidate(id);
+        blogBodyService.invalidate(id);
+        searchService.index(savedBlog);
+        return savedBlog;
+    }
+
+    // previous with the $set values (mapped the way the write mapped them) and the version increment of an update
+    private Blog applied(Blog previous, Document set) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        Document state = new Document();
+        converter.write(previous, state);
+        set.forEach((field, value) -> state.put(field, converter.convertToMongoType(value)));
+        Blog blog = converter.read(Blog.class, state);
+        blog.setVersion(previous.getVersion() == null ? 1 : previous.getVersion() + 1);
+        return blog;
+    }
+
+    private static Criteria versionedId(String id, Long expectedVersion) {
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion == null) {
+            return criteria;
+        }
+        if (expectedVersion == 0) {
+            // Blogs written before Blog.version existed have no version field yet
+            return criteria.orOperator(where("version").is(0L), where("version").exists(false));
+        }
+        return criteria.and("version").is(expectedVersion);
     }
-    public List<Blog> getMyUnpublishedBlogs() {
+
+    // Spools the file and returns straight away, the upload itself runs as a job (see UploadJobService)
+    public UploadJob updateCover(String id, MultipartFile file) throws IOException {
+        if (!blogRepo.existsById(id)) {
+            throw new ResourceNotFoundException("Blog not found with id: " + id);
+        }
+        return uploadJobService.submit(file, getCurrentUsername(), "blog_covers",
+                (url, publicId, variants) -> attachCover(id, url, publicId, variants));
+    }
+
+    /**
+     * Sets the cover image of a blog (see UploadJobService.Attachment).
+     * @return the public ids of the cover and variants it replaced, for deletion
+     */
+    public List<String> attachCover(String id, String url, String publicId, List<ImageVariant> variants) {
+        Update update = new Update()
+                .set("imageUrl", url)
+                .set("imagePublicId", publicId)
+                .set("imageVariants", variants)
+                .set("updatedAt", new Date())
+                .inc("version", 1);
+        Blog previous = mongoTemplate.findAndModify(query(where("id").is(id)), update, Blog.class);
+        if (previous == null) {
+            throw new IllegalStateException("Blog " + id + " no longer exists");
+        }
+        blogCache.invalidate(id);
+        blogBodyService.invalidate(id);
+        List<String> replaced = new ArrayList<>(ImageVariantService.publicIds(previous.getImageVariants()));
+        replaced.add(previous.getImagePublicId());
+        // The search index only needs the new summary fields, no need to read the blog back
+        previous.setImageUrl(url);
+        previous.setImagePublicId(publicId);
+        previous.setImageVariants(variants);
+        previous.setVersion(previous.getVersion() == null ? 1 : previous.getVersion() + 1);
+        searchService.index(previous);
+        return replaced;
+    }
+
+    /**
+     * Flips isPublished server-side with an update pipeline, so concurrent toggles can't
+     * both read the same state and cancel out.
+     * @return the new publish state
+     */
+    public boolean togglePublishStatus(String id){
+        AggregationUpdate toggle = AggregationUpdate.update()
+                .set("isPublished").toValue(BooleanOperators.Not.not("isPublished"))
+                .set("updatedAt").toValue(new Date())
+                // $ifNull: a missing version would make $add yield null
+                .set("version").toValue(ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull("version").then(0)).add(1));
+        Blog savedBlog = mongoTemplate.findAndModify(query(where("id").is(id)), toggle,
+                FindAndModifyOptions.options().returnNew(true), Blog.class);
+        if (savedBlog == null) {
+            throw new ResourceNotFoundException("Blog not found with id: " + id);
+        }
+        blogCache.invalidate(id);
+        blogBodyService.invalidate(id);
+        searchService.index(savedBlog);
+        boolean published = Boolean.TRUE.equals(savedBlog.getIsPublished());
+        if (published) {
+            topicCountService.published(savedBlog.getTopic());
+        } else {
+            topicCountService.unpublished(savedBlog.getTopic());
+        }
+        return published;
+    }
+
+    public CursorPage<BlogSummary> getMyUnpublishedBlogs(String cursor, Integer size) {
         String currentUsername = getCurrentUsername();
-        return blogRepo.findByAuthorUsernameAndIsPublishedFalse(currentUsername);
+        return page(cursor, size,
+                pageable -> blogRepo.findByAuthorUsernameAndIsPublishedFalse(currentUsername, pageable),
+                (after, pageable) -> blogRepo.findUnpublishedByAuthorAfter(currentUsername, after.createdAt(), after.id(), pageable));
     }
-    public List<Blog> getAllUnpublishedBlogsForAdmin() {
+    public CursorPage<BlogSummary> getAllUnpublishedBlogsForAdmin(String cursor, Integer size) {
         // Security check (role) should ideally be done at Controller level with @PreAuthorize
-        return blogRepo.findByIsPublishedFalse();
+        return page(cursor, size,
+                blogRepo::findByIsPublishedFalse,
+                (after, pageable) -> blogRepo.findUnpublishedAfter(after.createdAt(), after.id(), pageable));
     }
 
     public void deleteBlogById(String id) {
-        if(!blogRepo.existsById(id)){
+        // Only the image fields come back, they are queued for deletion once the blog is gone,
+        // plus what the topic counts need
+        Query byId = query(where("id").is(id));
+        byId.fields().include("imagePublicId", "imageVariants", "topic", "isPublished");
+        Blog deleted = mongoTemplate.findAndRemove(byId, Blog.class);
+        if (deleted == null) {
             throw new ResourceNotFoundException("Blog not found with id: "+ id);
         }
-        blogRepo.deleteById(id);
+        blogCache.invalidate(id);
+        blogBodyService.invalidate(id);
+        searchService.remove(id);
+        if (Boolean.TRUE.equals(deleted.getIsPublished())) {
+            topicCountService.unpublished(deleted.getTopic());
+        }
+
+        List<String> publicIds = new ArrayList<>(ImageVariantService.publicIds(deleted.getImageVariants()));
+        publicIds.add(deleted.getImagePublicId());
+        imageDeletionService.enqueue(publicIds);
+    }
+
+    /**
+     * Runs one keyset-paginated listing query.
+     * Fetches one extra row to find out whether another page exists, so the last page
+     * never hands out a cursor that leads to an empty response.
+     */
+    private CursorPage<BlogSummary> page(String cursor, Integer size,
+                                  Function<Pageable, List<BlogSummary>> firstPage,
+                                  BiFunction<BlogCursor, Pageable, List<BlogSummary>> nextPage) {
+        int pageSize = size == null || size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        Pageable pageable = PageRequest.of(0, pageSize + 1, FEED_ORDER);
+
+        List<BlogSummary> blogs = (cursor == null || cursor.isBlank())
+                ? firstPage.apply(pageable)
+                : nextPage.apply(BlogCursor.decode(cursor), pageable);
+
+        if (blogs.size() <= pageSize) {
+            return new CursorPage<>(blogs, null);
+        }
+        List<BlogSummary> items = blogs.subList(0, pageSize);
+        BlogSummary last = items.get(pageSize - 1);
+        BlogCursor next = BlogCursor.of(last.createdAt(), last.id());
+        if (next == null) {
+            // There are more rows, a null cursor would tell the client it has reached the end
+            throw new IllegalStateException("Cannot page past blog " + last.id() + ", its id is not an ObjectId");
+        }
+        return new CursorPage<>(items, next.encode());
     }
 
 
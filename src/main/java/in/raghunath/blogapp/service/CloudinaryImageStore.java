@@ -0,0 +1,121 @@
+package in.raghunath.blogapp.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+@Service
+@ConditionalOnProperty(name = "app.images.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryImageStore.class);
+
+    private final Cloudinary cloudinary;
+
+    public CloudinaryImageStore(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    /**
+     * Uploads an image file to Cloudinary.
+     * The file is streamed from disk by the HTTP client, it is never read into memory as a whole.
+     *
+     * @param file The spooled image, see UploadJobService. Content type is validated by the caller.
+     * @param folderName Optional: The folder name in Cloudinary (e.g., "profile_photos", "blog_covers").
+     * @return The secure URL and public id of the uploaded image.
+     * @throws IOException If an error occurs during upload.
+     */
+    @Override
+    public StoredImage store(Path file, String contentType, String folderName) throws IOException {
+        // Generate a unique public ID or use the original filename (carefully!)
+        // Using UUID is safer to avoid overwrites and naming conflicts
+        String publicId = (folderName != null ? folderName + "/" : "") + UUID.randomUUID().toString();
+
+        logger.info("Uploading file '{}' to Cloudinary with public_id '{}'", file, publicId);
+
+        try {
+            Map uploadResult = cloudinary.uploader().upload(file.toFile(),
+                    ObjectUtils.asMap(
+                            "public_id", publicId, // Explicitly set public_id
+                            "overwrite", true // Or false, depending on your needs
+                            // Add more options like transformations, tags etc. here
+                            // "folder", folderName // Alternative way to set folder
+                    ));
+
+            logger.info("Successfully uploaded file '{}'. URL: {}", file, uploadResult.get("url"));
+            // You typically need 'secure_url' for HTTPS and 'public_id' to manage the asset later (e.g., deletion)
+            String url = (String) uploadResult.get("secure_url");
+            String storedPublicId = (String) uploadResult.get("public_id");
+            if (url == null || storedPublicId == null) {
+                throw new IOException("Image upload failed to return necessary details from Cloudinary.");
+            }
+            return new StoredImage(url, storedPublicId);
+
+        } catch (IOException e) {
+            logger.error("Failed to upload file '{}' to Cloudinary", file, e);
+            throw new IOException("Failed to upload image to Cloudinary.", e);
+        }
+    }
+
+    /**
+     * Deletes an image from Cloudinary using its public ID.
+     *
+     * @param publicId The public ID of the image to delete.
+     * @throws IOException If an error occurs during deletion.
+     */
+    @Override
+    public void delete(String publicId) throws IOException {
+        logger.info("Deleting image from Cloudinary with public_id '{}'", publicId);
+        try {
+            Map result = this.cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+            logger.info("Successfully deleted image with public_id '{}'. Result: {}", publicId, result);
+        } catch (IOException e) {
+            logger.error("Failed to delete image with public_id '{}' from Cloudinary", publicId, e);
+            throw new IOException("Failed to delete image from Cloudinary.", e);
+        }
+
+    }
+
+    /**
+     * Pages through the folder with the Admin API (500 resources per call, the maximum).
+     * Admin API calls are rate limited per hour, so this is for the occasional reconciliation only.
+     */
+    @Override
+    public void list(String folderName, Consumer<ListedImage> consumer) throws IOException {
+        String cursor = null;
+        do {
+            Map<String, Object> options = new HashMap<>(ObjectUtils.asMap(
+                    "type", "upload",
+                    "prefix", folderName + "/",
+                    "max_results", 500));
+            if (cursor != null) {
+                options.put("next_cursor", cursor);
+            }
+            Map result;
+            try {
+                result = cloudinary.api().resources(options);
+            } catch (Exception e) {
+                throw new IOException("Failed to list images in Cloudinary folder " + folderName, e);
+            }
+            for (Object resource : (List<?>) result.get("resources")) {
+                Map<?, ?> fields = (Map<?, ?>) resource;
+                consumer.accept(new ListedImage((String) fields.get("public_id"),
+                        Instant.parse((String) fields.get("created_at"))));
+            }
+            cursor = (String) result.get("next_cursor");
+        } while (cursor != null);
+    }
+}
\ No newline at end of file
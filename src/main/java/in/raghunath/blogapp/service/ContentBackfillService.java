@@ -0,0 +1,127 @@
+package in.raghunath.blogapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import in.raghunath.blogapp.model.Blog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Renders blogs whose derived content fields are missing or come from an older
+ * ContentRenderService.VERSION: everything written before rendering existed, after a renderer
+ * change, and writes from nodes still running an older build during a rollout.
+ * Runs on one node per schedule (JobLockService), in batches found through content_render_version_idx.
+ * Each blog is written only if its version is still the one that was read, so a concurrent
+ * edit (which renders itself) always wins; the version is bumped like any other write,
+ * which changes the blog's ETag.
+ */
+@Service
+public class ContentBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentBackfillService.class);
+
+    private static final String JOB = "content-backfill";
+
+    private final MongoTemplate mongoTemplate;
+    private final ContentRenderService contentRenderService;
+    private final JobLockService jobLockService;
+    private final BlogBodyService blogBodyService;
+    private final SearchService searchService;
+    private final Cache<String, Blog> blogCache;
+
+    @Value("${app.content.backfill.batch-size}")
+    private int batchSize;
+
+    @Value("${app.content.backfill.interval}")
+    private Duration interval;
+
+    public ContentBackfillService(MongoTemplate mongoTemplate, ContentRenderService contentRenderService,
+                                  JobLockService jobLockService, BlogBodyService blogBodyService,
+                                  SearchService searchService, @Qualifier("blogCache") Cache<String, Blog> blogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.contentRenderService = contentRenderService;
+        this.jobLockService = jobLockService;
+        this.blogBodyService = blogBodyService;
+        this.searchService = searchService;
+        this.blogCache = blogCache;
+    }
+
+    @Scheduled(initialDelayString = "${app.content.backfill.initial-delay}",
+            fixedDelayString = "${app.content.backfill.interval}")
+    public void scheduledBackfill() {
+        // Held for just under the interval, so whichever node comes next can take it for the next run.
+        // A run outlasting it is harmless, the updates are guarded by version.
+        if (!jobLockService.tryLock(JOB, interval.multipliedBy(9).dividedBy(10))) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.error("Content backfill failed", e);
+        }
+    }
+
+    /**
+     * @return how many blogs were rendered
+     */
+    public long backfill() {
+        long start = System.currentTimeMillis();
+        long rendered = 0;
+        List<Blog> batch;
+        do {
+            // Missing (null) or older, both answered from the index. A blog that keeps losing to
+            // concurrent edits is simply found again by the next batch or run.
+            Query stale = query(new Criteria().orOperator(
+                    where("contentRenderVersion").is(null),
+                    where("contentRenderVersion").lt(ContentRenderService.VERSION)))
+                    .limit(batchSize);
+            stale.fields().include("content", "version");
+            batch = mongoTemplate.find(stale, Blog.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            rendered += renderBatch(batch);
+        } while (batch.size() == batchSize);
+
+        if (rendered > 0) {
+            log.info("Content backfill rendered {} blog(s) in {} ms", rendered, System.currentTimeMillis() - start);
+        }
+        return rendered;
+    }
+
+    private int renderBatch(List<Blog> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Blog.class);
+        for (Blog blog : batch) {
+            // Blogs written before Blog.version existed have no version field
+            Criteria unchanged = blog.getVersion() == null
+                    ? where("id").is(blog.getId()).and("version").exists(false)
+                    : where("id").is(blog.getId()).and("version").is(blog.getVersion());
+            Update update = contentRenderService.renderInto(new Update(), blog.getContent()).inc("version", 1);
+            bulk.updateOne(query(unchanged), update);
+        }
+        int modified = bulk.execute().getModifiedCount();
+
+        for (Blog blog : batch) {
+            blogCache.invalidate(blog.getId());
+            blogBodyService.invalidate(blog.getId());
+        }
+        // Search cards carry the excerpt and reading time, refresh the published ones
+        Query published = query(where("id").in(batch.stream().map(Blog::getId).toList()).and("isPublished").is(true));
+        searchService.indexAll(mongoTemplate.find(published, Blog.class));
+        return modified;
+    }
+}
@@ -0,0 +1,164 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.TocEntry;
+import org.commonmark.Extension;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.ext.heading.anchor.HeadingAnchorExtension;
+import org.commonmark.ext.heading.anchor.IdGenerator;
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.Code;
+import org.commonmark.node.Heading;
+import org.commonmark.node.HtmlBlock;
+import org.commonmark.node.HtmlInline;
+import org.commonmark.node.Node;
+import org.commonmark.node.Text;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.safety.Safelist;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a blog's Markdown content into sanitised HTML plus the fields derived from it
+ * (excerpt, word count, reading time, table of contents). BlogService and ImportService call it
+ * on every write that touches content, so readers get the stored output and nothing is rendered
+ * per view. Parser and renderer are thread-safe and shared.
+ */
+@Service
+public class ContentRenderService {
+
+    // Bump when the output changes (extensions, safelist, excerpt rules), ContentBackfillService then re-renders every blog
+    public static final int VERSION = 2;
+
+    // Only there so jsoup keeps relative links (and #anchors) instead of dropping them, never part of the output
+    private static final String BASE_URI = "https://blog.invalid/";
+
+    private static final List<Extension> EXTENSIONS = List.of(TablesExtension.create(), HeadingAnchorExtension.create());
+
+    private final Parser parser = Parser.builder().extensions(EXTENSIONS).build();
+    private final HtmlRenderer renderer = HtmlRenderer.builder().extensions(EXTENSIONS).build();
+    private final Safelist safelist = Safelist.relaxed()
+            .addAttributes("h1", "id").addAttributes("h2", "id").addAttributes("h3", "id")
+            .addAttributes("h4", "id").addAttributes("h5", "id").addAttributes("h6", "id")
+            .addAttributes("code", "class") // language-xyz from fenced code blocks
+            .addAttributes("th", "align").addAttributes("td", "align")
+            .addEnforcedAttribute("a", "rel", "nofollow noopener")
+            .preserveRelativeLinks(true);
+    private final Document.OutputSettings outputSettings = new Document.OutputSettings().prettyPrint(false);
+
+    @Value("${app.content.excerpt-length}")
+    private int excerptLength;
+
+    @Value("${app.content.words-per-minute}")
+    private int wordsPerMinute;
+
+    public record Rendered(String html, String excerpt, int wordCount, int readingTimeMinutes, List<TocEntry> toc) {
+    }
+
+    public Rendered render(String markdown) {
+        if (markdown == null || markdown.isBlank()) {
+            return new Rendered("", "", 0, 0, new ArrayList<>());
+        }
+        Node document = parser.parse(markdown);
+        stripRawHtml(document);
+        String html = Jsoup.clean(renderer.render(document), BASE_URI, safelist, outputSettings);
+        Document body = Jsoup.parseBodyFragment(html);
+        String text = body.text();
+        int words = text.isBlank() ? 0 : text.trim().split("\\s+").length;
+        int minutes = words == 0 ? 0 : Math.max(1, (int) Math.ceil((double) words / wordsPerMinute));
+        // The excerpt is prose: paragraphs only, unless there are none
+        String prose = String.join(" ", body.select("p").eachText());
+        return new Rendered(html, excerpt(prose.isBlank() ? text : prose), words, minutes, tableOfContents(document));
+    }
+
+    // Sets the derived fields on a blog about to be inserted
+    public void renderInto(Blog blog) {
+        Rendered rendered = render(blog.getContent());
+        blog.setContentHtml(rendered.html());
+        blog.setExcerpt(rendered.excerpt());
+        blog.setWordCount(rendered.wordCount());
+        blog.setReadingTimeMinutes(rendered.readingTimeMinutes());
+        blog.setToc(rendered.toc());
+        blog.setContentRenderVersion(VERSION);
+    }
+
+    // Adds the derived fields of new content to an update
+    public Update renderInto(Update update, String content) {
+        Rendered rendered = render(content);
+        return update.set("contentHtml", rendered.html())
+                .set("excerpt", rendered.excerpt())
+                .set("wordCount", rendered.wordCount())
+                .set("readingTimeMinutes", rendered.readingTimeMinutes())
+                .set("toc", rendered.toc())
+                .set("contentRenderVersion", VERSION);
+    }
+
+    // Raw HTML in the Markdown is dropped rather than left to the safelist, which would keep harmless-looking tags
+    private static void stripRawHtml(Node document) {
+        List<Node> raw = new ArrayList<>();
+        document.accept(new AbstractVisitor() {
+            @Override
+            public void visit(HtmlBlock node) {
+                raw.add(node);
+            }
+
+            @Override
+            public void visit(HtmlInline node) {
+                raw.add(node);
+            }
+        });
+        raw.forEach(Node::unlink);
+    }
+
+    // Cut at the last word boundary within excerpt-length
+    private String excerpt(String text) {
+        text = text.replaceAll("\\s+", " ").trim();
+        if (text.length() <= excerptLength) {
+            return text;
+        }
+        int cut = text.lastIndexOf(' ', excerptLength);
+        return text.substring(0, cut > 0 ? cut : excerptLength).stripTrailing() + "…";
+    }
+
+    /**
+     * Headings in document order. The anchors come from an IdGenerator set up like the one
+     * HeadingAnchorExtension uses while rendering, fed the same text in the same order,
+     * so they match the ids in the HTML (including the -1, -2 suffixes of repeated headings).
+     */
+    private static List<TocEntry> tableOfContents(Node document) {
+        IdGenerator ids = IdGenerator.builder().build();
+        List<TocEntry> toc = new ArrayList<>();
+        document.accept(new AbstractVisitor() {
+            @Override
+            public void visit(Heading heading) {
+                String text = headingText(heading);
+                toc.add(new TocEntry(heading.getLevel(), text.trim(), ids.generateId(text.trim().toLowerCase())));
+            }
+        });
+        return toc;
+    }
+
+    // Same text HeadingAnchorExtension builds its id from (trimmed and lower-cased there): text and inline code
+    private static String headingText(Heading heading) {
+        StringBuilder text = new StringBuilder();
+        heading.accept(new AbstractVisitor() {
+            @Override
+            public void visit(Text node) {
+                text.append(node.getLiteral());
+            }
+
+            @Override
+            public void visit(Code node) {
+                text.append(node.getLiteral());
+            }
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.Blog;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Listings seek on (createdAt, _id), so a blog without createdAt would never be reached by
+ * a next page. Blogs written before createdAt was always set get it from their ObjectId's
+ * timestamp at startup, the same value BlogCursor falls back to for them in the meantime.
+ * Idempotent, so every node can run it.
+ */
+@Service
+public class CreatedAtBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(CreatedAtBackfillService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public CreatedAtBackfillService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long filled = 0;
+        List<Blog> batch;
+        do {
+            // null also matches a missing field; other id types have no timestamp to take
+            Query missing = query(where("createdAt").is(null).and("id").type(JsonSchemaObject.Type.objectIdType()))
+                    .limit(BATCH_SIZE);
+            missing.fields().include("id");
+            batch = mongoTemplate.find(missing, Blog.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Blog.class);
+            for (Blog blog : batch) {
+                bulk.updateOne(query(where("id").is(blog.getId()).and("createdAt").is(null)),
+                        new Update().set("createdAt", new ObjectId(blog.getId()).getDate()));
+            }
+            filled += bulk.execute().getModifiedCount();
+        } while (batch.size() == BATCH_SIZE);
+
+        if (filled > 0) {
+            log.info("Set createdAt of {} blog(s) from their id", filled);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package in.raghunath.blogapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.User;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Bulk exports as NDJSON: one JSON document per line, in _id order.
+ * Documents go from a Mongo cursor straight to the response stream, so memory stays at
+ * one cursor batch plus the output buffer whatever the collection size.
+ * An interrupted export is resumed by passing the _id of the last line received as afterId,
+ * whatever its type (see range).
+ * Each export runs as an async task with its own timeout (app.export.timeout), every other
+ * async request keeps the default.
+ */
+@Service
+public class ExportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final MongoTemplate mongoTemplate;
+    // One document per line: no flush per document, the generator writes through when its buffer fills
+    private final ObjectWriter lineWriter;
+
+    @Value("${app.export.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.export.timeout:30m}")
+    private Duration timeout;
+
+    public ExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.lineWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public StreamingResponseBody exportBlogs(String afterId, String beforeId) {
+        return export(Blog.class, range(afterId, beforeId));
+    }
+
+    // User's password hash is @JsonIgnore'd, so it never leaves through here
+    public StreamingResponseBody exportUsers(String afterId, String beforeId) {
+        return export(User.class, range(afterId, beforeId));
+    }
+
+    /**
+     * Runs an export on the MVC task executor with the export timeout, writing straight to the response.
+     * (A StreamingResponseBody return value would always get the global async timeout.)
+     */
+    public WebAsyncTask<Void> task(StreamingResponseBody body, HttpServletResponse response) {
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            response.setContentType(NDJSON);
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+    }
+
+    /**
+     * In _id order, string ids (documents from before ids were always ObjectIds) come ahead of every
+     * ObjectId, but a comparison only matches ids of its own type. So each bound also takes in the ids
+     * of the other type on its side: everything after a string id includes all ObjectIds, everything
+     * before an ObjectId all string ids. An afterId or beforeId of 24 hex digits is taken as an ObjectId.
+     */
+    private Query range(String afterId, String beforeId) {
+        List<Criteria> bounds = new ArrayList<>();
+        if (afterId != null) {
+            bounds.add(ObjectId.isValid(afterId)
+                    ? where("_id").gt(new ObjectId(afterId))
+                    : new Criteria().orOperator(where("_id").gt(afterId), where("_id").type(JsonSchemaObject.Type.objectIdType())));
+        }
+        if (beforeId != null) {
+            bounds.add(ObjectId.isValid(beforeId)
+                    ? new Criteria().orOperator(where("_id").lt(new ObjectId(beforeId)), where("_id").type(JsonSchemaObject.Type.stringType()))
+                    : where("_id").lt(beforeId));
+        }
+        return new Query(bounds.isEmpty() ? new Criteria() : new Criteria().andOperator(bounds))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(batchSize);
+    }
+
+    private <T> StreamingResponseBody export(Class<T> type, Query query) {
+        return out -> {
+            long start = System.currentTimeMillis();
+            long count = 0;
+            try (Stream<T> documents = mongoTemplate.stream(query, type);
+                 JsonGenerator generator = lineWriter.getFactory().createGenerator((OutputStream) out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                for (T document : (Iterable<T>) documents::iterator) {
+                    lineWriter.writeValue(generator, document);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+            }
+            log.info("Exported {} {} documents in {} ms", count, type.getSimpleName(), System.currentTimeMillis() - start);
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.ImageDeletion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Deletes images from the ImageStore in the background, through an outbox (the image_deletions
+ * collection). Callers only enqueue, after the write that stopped referencing the images, so no
+ * request waits on the image provider and a failed deletion is retried instead of just logged.
+ * <p>
+ * Every node drains the outbox in batches: it claims up to batch-size due entries with one
+ * updateMulti (pushing them a lease into the future), deletes them one by one, removes the done
+ * ones in one go and reschedules the failures with exponential backoff and jitter.
+ * Delivery is at-least-once: a node dying after a delete but before the remove repeats it.
+ */
+@Service
+public class ImageDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDeletionService.class);
+
+    private final ImageStore imageStore;
+    private final MongoTemplate mongoTemplate;
+    private final Counter deleted;
+    private final Counter failed;
+
+    @Value("${app.images.deletions.batch-size}")
+    private int batchSize;
+
+    @Value("${app.images.deletions.lease}")
+    private Duration lease;
+
+    @Value("${app.images.deletions.initial-backoff}")
+    private Duration initialBackoff;
+
+    @Value("${app.images.deletions.max-backoff}")
+    private Duration maxBackoff;
+
+    public ImageDeletionService(ImageStore imageStore, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.imageStore = imageStore;
+        this.mongoTemplate = mongoTemplate;
+        this.deleted = Counter.builder("images.deletions").tag("result", "deleted").register(meterRegistry);
+        this.failed = Counter.builder("images.deletions").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Queues the images for deletion. Null and empty ids are ignored, so callers can pass
+     * whatever the replaced or deleted document held.
+     */
+    public void enqueue(Collection<String> publicIds) {
+        Instant now = Instant.now();
+        List<ImageDeletion> deletions = new ArrayList<>();
+        for (String publicId : publicIds) {
+            if (publicId != null && !publicId.isEmpty()) {
+                deletions.add(new ImageDeletion(null, publicId, now, null, 0, null, now));
+            }
+        }
+        if (!deletions.isEmpty()) {
+            mongoTemplate.insertAll(deletions);
+            log.info("Queued {} image(s) for deletion", deletions.size());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.images.deletions.poll-interval}",
+            fixedDelayString = "${app.images.deletions.poll-interval}")
+    public void drain() {
+        try {
+            // Keep going while batches come back full, there is probably more
+            while (drainBatch() == batchSize) {
+                log.debug("Image deletion batch full, draining the next one");
+            }
+        } catch (RuntimeException e) {
+            log.error("Draining image deletions failed", e);
+        }
+    }
+
+    /**
+     * @return how many entries were due, claimed or not
+     */
+    int drainBatch() {
+        Instant now = Instant.now();
+        Query due = query(where("nextAttemptAt").lte(now))
+                .with(Sort.by("nextAttemptAt"))
+                .limit(batchSize);
+        due.fields().include("id");
+        List<String> ids = mongoTemplate.find(due, ImageDeletion.class).stream()
+                .map(ImageDeletion::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Only entries still due are claimed, so two nodes never get the same one
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(query(where("id").in(ids).and("nextAttemptAt").lte(now)),
+                new Update().set("leaseOwner", owner).set("nextAttemptAt", now.plus(lease)),
+                ImageDeletion.class);
+        List<ImageDeletion> claimed = mongoTemplate.find(
+                query(where("id").in(ids).and("leaseOwner").is(owner)), ImageDeletion.class);
+
+        List<String> done = new ArrayList<>();
+        for (ImageDeletion deletion : claimed) {
+            try {
+                imageStore.delete(deletion.getPublicId());
+                done.add(deletion.getId());
+                deleted.increment();
+            } catch (Exception e) {
+                failed.increment();
+                reschedule(deletion, e);
+            }
+        }
+        if (!done.isEmpty()) {
+            mongoTemplate.remove(query(where("id").in(done)), ImageDeletion.class);
+        }
+        return ids.size();
+    }
+
+    // initial-backoff * 2^attempts, capped, with full jitter in its upper half so retries spread out
+    private void reschedule(ImageDeletion deletion, Exception e) {
+        int attempts = deletion.getAttempts() + 1;
+        long cappedMillis = Math.min(maxBackoff.toMillis(),
+                initialBackoff.toMillis() << Math.min(attempts - 1, 30));
+        long delayMillis = cappedMillis / 2 + ThreadLocalRandom.current().nextLong(cappedMillis / 2 + 1);
+        Instant next = Instant.now().plusMillis(delayMillis);
+        mongoTemplate.updateFirst(query(where("id").is(deletion.getId()).and("leaseOwner").is(deletion.getLeaseOwner())),
+                new Update()
+                        .set("attempts", attempts)
+                        .set("nextAttemptAt", next)
+                        .set("lastError", String.valueOf(e.getMessage()))
+                        .unset("leaseOwner"),
+                ImageDeletion.class);
+        log.warn("Deleting image {} failed (attempt {}), retrying at {}", deletion.getPublicId(), attempts, next, e);
+    }
+}
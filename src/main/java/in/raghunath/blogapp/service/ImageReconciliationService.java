@@ -0,0 +1,129 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.ImageDeletion;
+import in.raghunath.blogapp.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Finds stored images nothing points at any more and queues them on the ImageDeletionService.
+ * They come from crashes between storing and attaching an upload, or between the write that
+ * replaced an image and its enqueue. Only images older than min-age are considered, so uploads
+ * still in flight are left alone. Runs on one node per schedule (JobLockService).
+ */
+@Service
+public class ImageReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageReconciliationService.class);
+
+    private static final String JOB = "image-reconciliation";
+
+    private final ImageStore imageStore;
+    private final ImageDeletionService imageDeletionService;
+    private final JobLockService jobLockService;
+    private final MongoTemplate mongoTemplate;
+    private final Counter orphansFound;
+
+    @Value("${app.images.reconcile.folders}")
+    private List<String> folders;
+
+    @Value("${app.images.reconcile.min-age}")
+    private Duration minAge;
+
+    public ImageReconciliationService(ImageStore imageStore, ImageDeletionService imageDeletionService,
+                                      JobLockService jobLockService, MongoTemplate mongoTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.imageStore = imageStore;
+        this.imageDeletionService = imageDeletionService;
+        this.jobLockService = jobLockService;
+        this.mongoTemplate = mongoTemplate;
+        this.orphansFound = Counter.builder("images.orphans").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.images.reconcile.cron}")
+    public void scheduledReconcile() {
+        // Held for an hour, long enough to cover the run and short enough to not skip the next one
+        if (!jobLockService.tryLock(JOB, Duration.ofHours(1))) {
+            log.debug("Image reconciliation is running on another node");
+            return;
+        }
+        try {
+            reconcile();
+        } catch (IOException | RuntimeException e) {
+            log.error("Image reconciliation failed", e);
+        }
+    }
+
+    /**
+     * @return how many orphaned images were queued for deletion
+     */
+    public int reconcile() throws IOException {
+        long start = System.currentTimeMillis();
+        // Read the references before listing: anything attached after this is younger than min-age
+        Set<String> referenced = referencedPublicIds();
+        Instant cutoff = Instant.now().minus(minAge);
+
+        List<String> orphans = new ArrayList<>();
+        for (String folder : folders) {
+            imageStore.list(folder, image -> {
+                if (image.createdAt().isBefore(cutoff) && !referenced.contains(image.publicId())) {
+                    orphans.add(image.publicId());
+                }
+            });
+        }
+        imageDeletionService.enqueue(orphans);
+        orphansFound.increment(orphans.size());
+        log.info("Image reconciliation: {} referenced, {} orphaned image(s) queued for deletion in {} ms",
+                referenced.size(), orphans.size(), System.currentTimeMillis() - start);
+        return orphans.size();
+    }
+
+    // Everything users and blogs point at, plus what is already queued for deletion
+    private Set<String> referencedPublicIds() {
+        Set<String> referenced = new HashSet<>();
+
+        Query users = new Query();
+        users.fields().include("profilePhotoPublicId", "profilePhotoVariants.publicId");
+        try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+            stream.forEach(user -> {
+                referenced.add(user.getProfilePhotoPublicId());
+                referenced.addAll(ImageVariantService.publicIds(user.getProfilePhotoVariants()));
+            });
+        }
+
+        Query blogs = new Query();
+        blogs.fields().include("imagePublicId", "imageVariants.publicId");
+        try (Stream<Blog> stream = mongoTemplate.stream(blogs, Blog.class)) {
+            stream.forEach(blog -> {
+                referenced.add(blog.getImagePublicId());
+                referenced.addAll(ImageVariantService.publicIds(blog.getImageVariants()));
+            });
+        }
+
+        Query queued = new Query();
+        queued.fields().include("publicId");
+        try (Stream<ImageDeletion> stream = mongoTemplate.stream(queued, ImageDeletion.class)) {
+            stream.forEach(deletion -> referenced.add(deletion.getPublicId()));
+        }
+
+        referenced.remove(null);
+        return referenced;
+    }
+}
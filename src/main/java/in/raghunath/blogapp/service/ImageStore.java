@@ -0,0 +1,39 @@
+package in.raghunath.blogapp.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Where uploaded images live. Selected with app.images.store:
+ * {@code cloudinary} (default, CloudinaryImageStore) or {@code local} (LocalImageStore).
+ */
+public interface ImageStore {
+
+    record StoredImage(String url, String publicId) {
+    }
+
+    record ListedImage(String publicId, Instant createdAt) {
+    }
+
+    /**
+     * Stores an image that was spooled to disk, see UploadJobService.
+     *
+     * @param file        The image. Callers delete it afterwards, a store may move it instead of copying.
+     * @param contentType Content type of the upload, already validated to be image/*.
+     * @param folderName  Logical folder, e.g. "profile_photos" or "blog_covers".
+     */
+    StoredImage store(Path file, String contentType, String folderName) throws IOException;
+
+    /**
+     * Deletes an image. Deleting one that does not exist is not an error, deletions are retried
+     * by ImageDeletionService and may run more than once.
+     */
+    void delete(String publicId) throws IOException;
+
+    /**
+     * Feeds every image stored in a folder to the consumer, for ImageReconciliationService.
+     */
+    void list(String folderName, Consumer<ListedImage> consumer) throws IOException;
+}
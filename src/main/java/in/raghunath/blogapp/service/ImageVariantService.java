@@ -0,0 +1,331 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stores an uploaded image together with resized copies in the size classes of
+ * app.images.variants.sizes (name:maxWidth,...), all through the ImageStore, so variants sit next
+ * to the original. The image is decoded once, then every variant is resized, encoded and stored in
+ * parallel on imageVariantExecutor while the original is stored by the calling thread.
+ * Variants are never wider than the original, keep its aspect ratio, and are re-encoded as JPEG
+ * (PNG when the source has transparency), which also drops EXIF and other metadata, so a JPEG's
+ * EXIF orientation is applied to their pixels instead.
+ * Formats ImageIO cannot read (WebP, AVIF, ...) or decode (CMYK JPEG, truncated files) are
+ * stored without variants.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public record Result(ImageStore.StoredImage original, List<ImageVariant> variants) {
+    }
+
+    private record Source(BufferedImage image, int originalWidth) {
+    }
+
+    private final ImageStore imageStore;
+    private final ImageDeletionService imageDeletionService;
+    private final ExecutorService executor;
+    private final Map<String, Integer> sizes = new LinkedHashMap<>();
+    // Decoded images are the big allocations (4 bytes per pixel), so only a few at a time
+    private final Semaphore decodePermits;
+
+    @Value("${app.images.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${app.images.variants.max-pixels:50000000}")
+    private long maxPixels;
+
+    public ImageVariantService(ImageStore imageStore, ImageDeletionService imageDeletionService,
+                               @Qualifier("imageVariantExecutor") ExecutorService executor,
+                               @Value("${app.images.variants.sizes}") String sizes,
+                               @Value("${app.images.variants.max-concurrent-decodes:2}") int maxConcurrentDecodes) {
+        this.imageStore = imageStore;
+        this.imageDeletionService = imageDeletionService;
+        this.executor = executor;
+        this.decodePermits = new Semaphore(maxConcurrentDecodes);
+        for (String size : sizes.split(",")) {
+            String[] parts = size.trim().split(":");
+            this.sizes.put(parts[0], Integer.parseInt(parts[1]));
+        }
+    }
+
+    /**
+     * @param file The spooled upload. It may be moved by the store, callers delete it if still there.
+     */
+    public Result store(Path file, String contentType, String folderName) throws IOException, InterruptedException {
+        Source source = decode(file);
+        if (source == null) {
+            return new Result(imageStore.store(file, contentType, folderName), List.of());
+        }
+        List<CompletableFuture<ImageVariant>> pending = new ArrayList<>();
+        try {
+            for (String name : sizes.keySet()) {
+                pending.add(CompletableFuture.supplyAsync(() -> storeVariant(source, name, file.getParent(), folderName), executor));
+            }
+            ImageStore.StoredImage original;
+            try {
+                original = imageStore.store(file, contentType, folderName);
+            } catch (IOException | RuntimeException e) {
+                imageDeletionService.enqueue(publicIds(collect(pending)));
+                throw e;
+            }
+            return new Result(original, collect(pending));
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    // A variant that failed is left out, the original is still usable without it
+    private static List<ImageVariant> collect(List<CompletableFuture<ImageVariant>> pending) {
+        List<ImageVariant> variants = new ArrayList<>();
+        for (CompletableFuture<ImageVariant> future : pending) {
+            try {
+                variants.add(future.join());
+            } catch (CompletionException e) {
+                log.error("Could not create image variant", e.getCause());
+            }
+        }
+        return variants;
+    }
+
+
+    private ImageVariant storeVariant(Source source, String name, Path spoolDir, String folderName) {
+        Path encoded = null;
+        try {
+            int maxWidth = sizes.get(name);
+            BufferedImage image = source.image();
+            // Never upscale, measured against the original (the decoded image may be subsampled)
+            int targetWidth = Math.min(Math.min(maxWidth, source.originalWidth()), image.getWidth());
+            int targetHeight = Math.max(1, Math.round((float) image.getHeight() * targetWidth / image.getWidth()));
+
+            boolean alpha = image.getColorModel().hasAlpha();
+            String contentType = alpha ? "image/png" : "image/jpeg";
+            encoded = Files.createTempFile(spoolDir, "variant-" + name + "-", alpha ? ".png" : ".jpg");
+            write(resize(image, targetWidth, targetHeight, alpha), contentType, encoded);
+            long size = Files.size(encoded);
+
+            ImageStore.StoredImage stored = imageStore.store(encoded, contentType, folderName);
+            return new ImageVariant(name, targetWidth, targetHeight, contentType, size, stored.url(), stored.publicId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (encoded != null) {
+                try {
+                    Files.deleteIfExists(encoded);
+                } catch (IOException e) {
+                    log.warn("Could not delete encoded variant {}", encoded, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the image at no more than twice the largest variant width: JPEG and PNG readers can
+     * subsample while decoding, so a 24 MP photo never has to be fully materialised for a 960 px variant.
+     * Returns null when ImageIO has no reader for the format or fails to decode the file;
+     * otherwise a decode permit is held.
+     */
+    private Source decode(Path file) throws IOException, InterruptedException {
+        decodePermits.acquire();
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                decodePermits.release();
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is too large (" + width + "x" + height + ")");
+                }
+                // Sizes are about the image as displayed, which is turned on its side for orientations 5-8
+                int orientation = exifOrientation(file);
+                int displayedWidth = orientation >= 5 ? height : width;
+                int largest = sizes.values().stream().mapToInt(Integer::intValue).max().orElse(displayedWidth);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, displayedWidth / (2 * largest));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new Source(orient(reader.read(0, param), orientation), displayedWidth);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            // The upload itself is fine to keep, it just gets no variants
+            log.warn("Could not decode {}, storing it without variants", file.getFileName(), e);
+            decodePermits.release();
+            return null;
+        } catch (RuntimeException e) {
+            decodePermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * The Orientation tag (0x0112) of a JPEG's EXIF block, 1 (as stored) when there is none.
+     * Walks the segments up to the image data looking for APP1 "Exif", then IFD0 of its TIFF structure.
+     */
+    static int exifOrientation(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1; // not a JPEG
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1; // start of scan or end of image, no EXIF before it
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                byte[] segment = in.readNBytes(length);
+                if (segment.length < 14 || !new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                    continue;
+                }
+                ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+                tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+                int ifd = tiff.getInt(4);
+                int entries = tiff.getShort(ifd) & 0xFFFF;
+                for (int i = 0; i < entries; i++) {
+                    int entry = ifd + 2 + i * 12;
+                    if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                        int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                        return orientation >= 1 && orientation <= 8 ? orientation : 1;
+                    }
+                }
+                return 1;
+            }
+        } catch (IOException | RuntimeException e) {
+            return 1; // unreadable or malformed metadata, use the pixels as stored
+        }
+    }
+
+    /**
+     * Turns a decoded image the way EXIF orientation 2-8 says it is to be displayed:
+     * mirrored (2, 4), rotated 180 (3), transposed (5), rotated 90 clockwise (6),
+     * transversed (7) or rotated 90 counter-clockwise (8).
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Source to displayed coordinates, arguments (m00, m10, m01, m11, m02, m12): x' = m00 x + m01 y + m02, y' = m10 x + m11 y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);
+        };
+        boolean sideways = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(sideways ? h : w, sideways ? w : h,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // Halve repeatedly, then one final step: a single bilinear pass from far away aliases badly
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private void write(BufferedImage image, String contentType, Path out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(contentType).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("image/jpeg".equals(contentType)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public static List<String> publicIds(List<ImageVariant> variants) {
+        List<String> ids = new ArrayList<>();
+        if (variants != null) {
+            for (ImageVariant variant : variants) {
+                if (variant.getPublicId() != null) {
+                    ids.add(variant.getPublicId());
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,203 @@
+package in.raghunath.blogapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import in.raghunath.blogapp.DTO.ImportError;
+import in.raghunath.blogapp.DTO.ImportResult;
+import in.raghunath.blogapp.model.Blog;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk imports in the NDJSON format ExportService writes, one document per line.
+ * The body is read a line at a time and written in unordered insertMany batches of batch-size,
+ * so memory stays at one batch whatever the size of the import, and a bad record fails only
+ * its own line. Ids are kept, so re-running an interrupted import skips what is already there
+ * (reported as duplicates).
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final SearchService searchService;
+    private final ContentRenderService contentRenderService;
+    private final TopicCountService topicCountService;
+    private final ObjectReader blogReader;
+
+    @Value("${app.import.batch-size}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors}")
+    private int maxReportedErrors;
+
+    public ImportService(MongoTemplate mongoTemplate, SearchService searchService,
+                         ContentRenderService contentRenderService, TopicCountService topicCountService,
+                         ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.searchService = searchService;
+        this.contentRenderService = contentRenderService;
+        this.topicCountService = topicCountService;
+        this.blogReader = objectMapper.readerFor(Blog.class);
+    }
+
+    // A batch of parsed records and the lines they came from
+    private record Pending(List<Blog> blogs, List<Long> lines) {
+        Pending() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+    }
+
+    // Counters and the reported errors of one import
+    private final class Progress {
+        long records;
+        long imported;
+        long failed;
+        final List<ImportError> errors = new ArrayList<>();
+
+        void fail(long line, String id, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportError(line, id, message));
+            }
+        }
+    }
+
+    public ImportResult importBlogs(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        Pending pending = new Pending();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            progress.records++;
+            Blog blog;
+            try {
+                blog = blogReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                progress.fail(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            String problem = prepare(blog);
+            if (problem != null) {
+                progress.fail(lineNumber, blog.getId(), problem);
+                continue;
+            }
+            // Derived fields in the file are not trusted, they are rendered again
+            contentRenderService.renderInto(blog);
+            pending.blogs().add(blog);
+            pending.lines().add(lineNumber);
+            if (pending.blogs().size() == batchSize) {
+                insertBatch(pending, progress);
+                pending = new Pending();
+            }
+        }
+        if (!pending.blogs().isEmpty()) {
+            insertBatch(pending, progress);
+        }
+
+        progress.errors.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        log.info("Imported {} of {} blog records ({} failed) in {} ms",
+                progress.imported, progress.records, progress.failed, System.currentTimeMillis() - start);
+        return new ImportResult(progress.records, progress.imported, progress.failed, progress.errors);
+    }
+
+    /**
+     * Validates the record and fills in what the export may lack.
+     * @return why the record is rejected, null if it is fine
+     */
+    private static String prepare(Blog blog) {
+        if (isBlank(blog.getAuthorUsername())) {
+            return "authorUsername is required";
+        }
+        if (isBlank(blog.getTitle())) {
+            return "title is required";
+        }
+        if (isBlank(blog.getContent())) {
+            return "content is required";
+        }
+        // Listings seek on _id, so it has to be an ObjectId like every other blog's
+        if (blog.getId() == null) {
+            blog.setId(new ObjectId().toHexString());
+        } else if (!ObjectId.isValid(blog.getId())) {
+            return "id is not a valid ObjectId";
+        }
+        if (blog.getCreatedAt() == null) {
+            blog.setCreatedAt(new Date());
+        }
+        if (blog.getUpdatedAt() == null) {
+            blog.setUpdatedAt(blog.getCreatedAt());
+        }
+        if (blog.getIsPublished() == null) {
+            blog.setIsPublished(false);
+        }
+        if (blog.getImageVariants() == null) {
+            blog.setImageVariants(new ArrayList<>());
+        }
+        // A bulk insert does not initialise @Version the way MongoTemplate.insert does
+        if (blog.getVersion() == null) {
+            blog.setVersion(0L);
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void insertBatch(Pending pending, Progress progress) {
+        List<Blog> blogs = pending.blogs();
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Blog.class)
+                    .insert(blogs)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                Blog blog = blogs.get(error.getIndex());
+                rejected.add(error.getIndex());
+                progress.fail(pending.lines().get(error.getIndex()), blog.getId(),
+                        error.getCode() == 11000 ? "A blog with this id already exists" : error.getMessage());
+            }
+        }
+        // Unordered: every insert without an error went through
+        List<Blog> inserted = new ArrayList<>();
+        List<String> publishedTopics = new ArrayList<>();
+        for (int i = 0; i < blogs.size(); i++) {
+            if (!rejected.contains(i)) {
+                inserted.add(blogs.get(i));
+                if (Boolean.TRUE.equals(blogs.get(i).getIsPublished())) {
+                    publishedTopics.add(blogs.get(i).getTopic());
+                }
+            }
+        }
+        searchService.indexAll(inserted);
+        topicCountService.publishedAll(publishedTopics);
+        progress.imported += blogs.size() - rejected.size();
+    }
+}
@@ -0,0 +1,45 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.JobLock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Makes sure a periodic job runs on one node at a time, when the work is cluster-wide
+ * (reconciliation, sweeps). A lock is a job_locks document with an expiry, taken with one upsert:
+ * it matches only if the lock is free or expired, and if it isn't the upsert collides on _id.
+ * Locks are never released early, so a job runs at most once per lock duration across the cluster.
+ */
+@Service
+public class JobLockService {
+
+    // pid@host, only used to show who holds a lock
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final MongoTemplate mongoTemplate;
+
+    public JobLockService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean tryLock(String job, Duration lockFor) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.upsert(query(where("id").is(job).and("lockedUntil").lte(now)),
+                    new Update().set("owner", NODE).set("lockedUntil", now.plus(lockFor)),
+                    JobLock.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false; // held by someone else
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package in.raghunath.blogapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Images on the local disk, for offline runs, load tests and single-node deployments.
+ * Every upload gets its own file, {@code <folder>/<random id>.<ext>}, so a path never changes
+ * content (ImageController serves them as immutable) and has exactly one owner. delete can then
+ * just remove the file, which keeps it safe to repeat (ImageDeletionService is at-least-once).
+ * Served at /images/** by ImageController.
+ */
+@Service
+@ConditionalOnProperty(name = "app.images.store", havingValue = "local")
+public class LocalImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStore.class);
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "image/avif", "avif");
+
+    private static final Pattern FOLDER = Pattern.compile("[a-z0-9_]+");
+    // 32 hex digits for uploads, 64 (a sha256) for files from when identical uploads shared one
+    private static final Pattern PUBLIC_ID = Pattern.compile("[a-z0-9_]+/([0-9a-f]{32}|[0-9a-f]{64})\\.[a-z]+");
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalImageStore(@Value("${app.images.local.root}") Path root,
+                           @Value("${app.images.local.base-url}") String baseUrl) throws IOException {
+        this.root = Files.createDirectories(root).toRealPath();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        logger.info("Storing images under {}", this.root);
+    }
+
+    @Override
+    public StoredImage store(Path file, String contentType, String folderName) throws IOException {
+        if (folderName == null || !FOLDER.matcher(folderName).matches()) {
+            throw new IllegalArgumentException("Invalid image folder: " + folderName);
+        }
+        String extension = EXTENSIONS.get(contentType);
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type: " + contentType);
+        }
+        String publicId = folderName + "/" + UUID.randomUUID().toString().replace("-", "") + "." + extension;
+        Path target = root.resolve(publicId);
+
+        Files.createDirectories(target.getParent());
+        // Move (or copy, across file systems) next to the target, then rename into place so
+        // a reader never sees a partial file
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Files.move(file, part, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Stored image {}", publicId);
+        return new StoredImage(baseUrl + "/" + publicId, publicId);
+    }
+
+    @Override
+    public void delete(String publicId) throws IOException {
+        Optional<Path> image = resolve(publicId);
+        if (image.isEmpty()) {
+            logger.info("Image {} is already gone", publicId);
+            return;
+        }
+        Path target = image.get();
+        // Identical uploads used to share a file, counted in a .refs file next to it. Which owner a
+        // deletion is for can't be told, and a repeated one would count twice, so shared ones stay.
+        if (legacyRefs(target) > 1) {
+            logger.warn("Image {} may be shared by several owners, kept", publicId);
+            return;
+        }
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(refsFile(target));
+        logger.info("Deleted image {}", publicId);
+    }
+
+    @Override
+    public void list(String folderName, Consumer<ListedImage> consumer) throws IOException {
+        Path folder = root.resolve(folderName).normalize();
+        if (!folder.startsWith(root) || !Files.isDirectory(folder)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+            for (Path file : files) {
+                String publicId = folderName + "/" + file.getFileName();
+                // Skips the .refs and .part files
+                if (PUBLIC_ID.matcher(publicId).matches()) {
+                    consumer.accept(new ListedImage(publicId, Files.getLastModifiedTime(file).toInstant()));
+                }
+            }
+        }
+    }
+
+    public static String contentTypeOf(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        return EXTENSIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(extension))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("application/octet-stream");
+    }
+
+    /**
+     * The file behind a public id, if it is well-formed and exists. Never resolves outside the root.
+     */
+    public Optional<Path> resolve(String publicId) {
+        if (publicId == null || !PUBLIC_ID.matcher(publicId).matches()) {
+            return Optional.empty();
+        }
+        Path path = root.resolve(publicId).normalize();
+        return path.startsWith(root) && Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private static Path refsFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".refs");
+    }
+
+    private static long legacyRefs(Path target) throws IOException {
+        Path refs = refsFile(target);
+        if (!Files.exists(refs)) {
+            return 1;
+        }
+        return Long.parseLong(Files.readString(refs, StandardCharsets.US_ASCII).trim());
+    }
+}
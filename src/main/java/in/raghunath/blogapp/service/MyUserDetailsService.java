@@ -1,11 +1,18 @@
 package in.raghunath.blogapp.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import in.raghunath.blogapp.model.User; // Your MongoDB user model
 import in.raghunath.blogapp.repo.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException; // Alias for Spring Security's User
 import org.springframework.stereotype.Service;
@@ -15,20 +22,57 @@ import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
 
 
+    private static final Logger logger = LoggerFactory.getLogger(MyUserDetailsService.class);
 
     private final UserRepo userRepo;
+    private final Cache<String, UserDetails> userDetailsCache;
+    private final MongoTemplate mongoTemplate;
 
-    public MyUserDetailsService(UserRepo userRepo) {
+    public MyUserDetailsService(UserRepo userRepo,
+                                @Qualifier("userDetailsCache") Cache<String, UserDetails> userDetailsCache,
+                                MongoTemplate mongoTemplate) {
         this.userRepo = userRepo;
+        this.userDetailsCache = userDetailsCache;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // UsernameNotFoundException propagates out of the loader and nothing is cached
+        UserDetails cached = userDetailsCache.get(username, this::loadFromDatabase);
+        // Always hand out a copy: ProviderManager erases the credentials of the
+        // instance it authenticated, which would wipe the cached password hash
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash has a lower
+     * BCrypt cost than configured, with the password re-encoded at the current cost.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        mongoTemplate.updateFirst(query(where("username").is(user.getUsername())),
+                new Update().set("password", newPassword), User.class);
+        evict(user.getUsername());
+        logger.info("User '{}': password hash upgraded to the current BCrypt strength", user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+
+    // Call whenever a user is deleted or their roles or password change
+    public void evict(String username) {
+        userDetailsCache.invalidate(username);
+    }
+
+    private UserDetails loadFromDatabase(String username) {
         // Fetch user from MongoDB
         User appUser = userRepo.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
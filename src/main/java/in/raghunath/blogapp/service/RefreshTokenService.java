@@ -1,49 +1,125 @@
 package in.raghunath.blogapp.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import in.raghunath.blogapp.exception.TokenRefreshException; // Create this custom exception
 import in.raghunath.blogapp.model.RefreshToken;
 import in.raghunath.blogapp.repo.RefreshTokenRepo;
-import in.raghunath.blogapp.repo.UserRepo; // Optional: If needed to verify user exists
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Opaque refresh tokens in the refresh_tokens collection.
+ * Expired tokens are removed by the TTL index on expiry_date; the scheduled sweep only catches
+ * what the TTL monitor (once a minute, on the primary) has not got to yet. Each user keeps at most
+ * max-per-user tokens, a new login evicts the oldest. Lookups for /auth/refresh go through
+ * refreshTokenCache, which this service invalidates on every delete on this node.
+ */
 @Service
 public class RefreshTokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final String SWEEP_JOB = "refresh-token-sweep";
+
     @Value("${app.jwt.refreshToken.expiration}")
     private Long refreshTokenDurationMs;
 
+    @Value("${app.jwt.refreshToken.max-per-user}")
+    private int maxTokensPerUser;
+
+    @Value("${app.jwt.refreshToken.sweep-batch-size}")
+    private int sweepBatchSize;
+
     @Autowired
     private RefreshTokenRepo refreshTokenRepo;
 
     @Autowired
-    private UserRepo userRepo; // To ensure user exists
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Autowired
+    @Qualifier("refreshTokenCache")
+    private Cache<String, RefreshToken> refreshTokenCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter swept;
+    private Counter evicted;
+
+    @PostConstruct
+    void registerMeters() {
+        // estimatedDocumentCount reads collection metadata, cheap enough for every scrape
+        Gauge.builder("refresh_tokens.stored", mongoTemplate, template -> template.estimatedCount(RefreshToken.class))
+                .register(meterRegistry);
+        swept = Counter.builder("refresh_tokens.swept").register(meterRegistry);
+        evicted = Counter.builder("refresh_tokens.evicted").register(meterRegistry);
+    }
 
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepo.findByToken(token);
+        RefreshToken cached = refreshTokenCache.getIfPresent(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<RefreshToken> refreshToken = refreshTokenRepo.findByToken(token);
+        refreshToken.ifPresent(found -> refreshTokenCache.put(token, found));
+        return refreshToken;
     }
 
+    // The caller has just authenticated the user, so there is no need to look them up again
     public RefreshToken createRefreshToken(String username) {
-        // Ensure the user actually exists before creating a token for them
-        userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Error: User not found for refresh token creation - " + username));
-
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setUsername(username);
         refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
         refreshToken.setToken(UUID.randomUUID().toString()); // Generate a secure random opaque token
 
         refreshToken = refreshTokenRepo.save(refreshToken);
+        evictOldest(username);
         return refreshToken;
     }
 
+    // Every token has the same lifetime, so the oldest tokens are the ones expiring first
+    private void evictOldest(String username) {
+        Query beyondCap = query(where("username").is(username))
+                .with(Sort.by(Sort.Direction.DESC, "expiryDate"))
+                .skip(maxTokensPerUser);
+        beyondCap.fields().include("token");
+        List<RefreshToken> oldest = mongoTemplate.find(beyondCap, RefreshToken.class);
+        if (oldest.isEmpty()) {
+            return;
+        }
+        mongoTemplate.remove(query(where("id").in(oldest.stream().map(RefreshToken::getId).toList())), RefreshToken.class);
+        oldest.forEach(token -> refreshTokenCache.invalidate(token.getToken()));
+        evicted.increment(oldest.size());
+        log.info("User '{}': evicted {} refresh token(s) over the limit of {}", username, oldest.size(), maxTokensPerUser);
+    }
+
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
+            refreshTokenCache.invalidate(token.getToken());
             refreshTokenRepo.delete(token); // Clean up expired tokens
             throw new TokenRefreshException(token.getToken(), "Refresh token was expired. Please make a new signin request");
         }
@@ -52,11 +128,45 @@ public class RefreshTokenService {
 
     // Core method for logout: Delete the token from the database
     public void deleteByToken(String token) {
+        refreshTokenCache.invalidate(token);
         refreshTokenRepo.deleteByToken(token);
     }
 
     // Optional: Invalidate all tokens for a user
     public void deleteByUsername(String username) {
+        refreshTokenCache.asMap().values().removeIf(token -> token.getUsername().equals(username));
         refreshTokenRepo.deleteByUsername(username);
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes expired tokens in batches of sweep-batch-size, on one node per run.
+     * Each batch is a find of ids on the TTL index plus one deleteMany, so a large backlog never
+     * turns into a single long-running delete.
+     */
+    @Scheduled(initialDelayString = "${app.jwt.refreshToken.sweep-interval}",
+            fixedDelayString = "${app.jwt.refreshToken.sweep-interval}")
+    public void sweepExpired() {
+        if (!jobLockService.tryLock(SWEEP_JOB, Duration.ofMinutes(1))) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long removed = 0;
+        try {
+            List<String> ids;
+            do {
+                Query expired = query(where("expiryDate").lt(Instant.now())).limit(sweepBatchSize);
+                expired.fields().include("id");
+                ids = mongoTemplate.find(expired, RefreshToken.class).stream().map(RefreshToken::getId).toList();
+                if (!ids.isEmpty()) {
+                    removed += mongoTemplate.remove(query(where("id").in(ids)), RefreshToken.class).getDeletedCount();
+                }
+            } while (ids.size() == sweepBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Refresh token sweep failed", e);
+        }
+        swept.increment(removed);
+        if (removed > 0) {
+            log.info("Swept {} expired refresh token(s) in {} ms", removed, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.DTO.BlogSummary;
+import in.raghunath.blogapp.DTO.SearchHit;
+import in.raghunath.blogapp.DTO.SearchResults;
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.SearchChange;
+import in.raghunath.blogapp.repo.BlogRepo;
+import in.raghunath.blogapp.search.InvertedIndex;
+import in.raghunath.blogapp.search.TextAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Full-text search over published blogs.
+ * The index lives in memory on each node: it is rebuilt from Mongo once the application
+ * is ready and then kept current by BlogService, ImportService and ContentBackfillService on every write.
+ * Each write is also recorded in search_changes; the other nodes re-read those blogs on their next poll,
+ * so a change reaches every node's index within poll-interval. Until then a hit whose blog has since
+ * been unpublished or deleted is dropped when the page's contents are loaded.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    // Characters of context kept on each side of the first match in a snippet
+    private static final int SNIPPET_RADIUS = 80;
+
+    // Changed blogs read back per query when catching up
+    private static final int SYNC_BATCH_SIZE = 1000;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final BlogRepo blogRepo;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.blogs.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.blogs.page.max-size:100}")
+    private int maxPageSize;
+
+    // Re-read a little before the last poll, changedAt comes from other nodes' clocks
+    @Value("${app.search.poll-overlap:5s}")
+    private Duration pollOverlap;
+
+    // null until the index is built, polls before that have nothing to catch up on
+    private volatile Instant lastPoll;
+
+    public SearchService(BlogRepo blogRepo, MongoTemplate mongoTemplate) {
+        this.blogRepo = blogRepo;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        Instant start = Instant.now();
+        try (Stream<Blog> published = mongoTemplate.stream(query(where("isPublished").is(true)), Blog.class)) {
+            published.forEach(this::put);
+        }
+        lastPoll = start;
+        log.info("Search index built with {} published blogs in {} ms", index.size(), Duration.between(start, Instant.now()).toMillis());
+    }
+
+    @Scheduled(initialDelayString = "${app.search.poll-interval}", fixedDelayString = "${app.search.poll-interval}")
+    public void poll() {
+        if (lastPoll == null) {
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            int changed = syncSince(lastPoll.minus(pollOverlap));
+            lastPoll = start;
+            log.debug("Search index caught up on {} changed blog(s)", changed);
+        } catch (RuntimeException e) {
+            log.error("Polling search changes failed", e);
+        }
+    }
+
+    // Unpublished blogs are dropped from the index, so callers can pass any saved blog
+    public void index(Blog blog) {
+        put(blog);
+        mongoTemplate.upsert(query(where("id").is(blog.getId())), new Update().set("changedAt", Instant.now()), SearchChange.class);
+    }
+
+    // Many blogs at once (imports, backfill): one bulk write for their changes
+    public void indexAll(Collection<Blog> blogs) {
+        if (blogs.isEmpty()) {
+            return;
+        }
+        BulkOperations changes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SearchChange.class);
+        Update changed = new Update().set("changedAt", Instant.now());
+        for (Blog blog : blogs) {
+            put(blog);
+            changes.upsert(query(where("id").is(blog.getId())), changed);
+        }
+        changes.execute();
+    }
+
+    public void remove(String id) {
+        index.remove(id);
+        mongoTemplate.upsert(query(where("id").is(id)), new Update().set("changedAt", Instant.now()), SearchChange.class);
+    }
+
+    private void put(Blog blog) {
+        if (!Boolean.TRUE.equals(blog.getIsPublished())) {
+            index.remove(blog.getId());
+            return;
+        }
+        String[] fields = new String[InvertedIndex.Field.values().length];
+        fields[InvertedIndex.Field.TITLE.ordinal()] = blog.getTitle();
+        fields[InvertedIndex.Field.SUBTITLE.ordinal()] = blog.getSubtitle();
+        fields[InvertedIndex.Field.TOPIC.ordinal()] = blog.getTopic();
+        fields[InvertedIndex.Field.CONTENT.ordinal()] = blog.getContent();
+        index.put(BlogSummary.of(blog), fields);
+    }
+
+    /**
+     * Re-reads the blogs changed since then, this node's own writes included (putting a blog again is harmless).
+     * Published ones are indexed again, the rest (unpublished or deleted) removed.
+     * @return how many changes were read
+     */
+    int syncSince(Instant since) {
+        Query changes = query(where("changedAt").gte(since));
+        changes.fields().include("id");
+        List<String> ids = mongoTemplate.find(changes, SearchChange.class).stream().map(SearchChange::getId).toList();
+        for (int from = 0; from < ids.size(); from += SYNC_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + SYNC_BATCH_SIZE));
+            Set<String> gone = new HashSet<>(batch);
+            try (Stream<Blog> published = mongoTemplate.stream(
+                    query(where("id").in(batch).and("isPublished").is(true)), Blog.class)) {
+                published.forEach(blog -> {
+                    gone.remove(blog.getId());
+                    put(blog);
+                });
+            }
+            gone.forEach(index::remove);
+        }
+        return ids.size();
+    }
+
+    public SearchResults search(String query, Integer page, Integer size) {
+        int pageSize = size == null || size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        int pageNumber = page == null || page < 0 ? 0 : page;
+        List<String> terms = TextAnalyzer.terms(query);
+        if (terms.isEmpty()) {
+            return new SearchResults(Collections.emptyList(), 0, pageNumber, pageSize);
+        }
+
+        // In long: page * size overflows int for large pages. A page starting past every indexed
+        // blog can't have hits, only the total is counted (limit 0), and the rest fits in an int.
+        long offset = (long) pageNumber * pageSize;
+        if (offset >= index.size()) {
+            return new SearchResults(Collections.emptyList(), index.search(terms, 0).total(), pageNumber, pageSize);
+        }
+        InvertedIndex.Result result = index.search(terms, (int) Math.min(Integer.MAX_VALUE, offset + pageSize));
+        List<InvertedIndex.Hit> hits = result.hits();
+        if (hits.size() <= offset) {
+            return new SearchResults(Collections.emptyList(), result.total(), pageNumber, pageSize);
+        }
+        hits = hits.subList((int) offset, hits.size());
+
+        // Only the content of the blogs on this page is loaded, for their snippets. A blog that is no
+        // longer there or published was changed on another node since this one's last poll: dropped now.
+        List<String> ids = hits.stream().map(hit -> hit.summary().id()).toList();
+        Map<String, Blog> blogs = blogRepo.findContentByIdIn(ids).stream()
+                .filter(blog -> Boolean.TRUE.equals(blog.getIsPublished()))
+                .collect(Collectors.toMap(Blog::getId, blog -> blog));
+        int dropped = 0;
+        for (String id : ids) {
+            if (!blogs.containsKey(id)) {
+                index.remove(id);
+                dropped++;
+            }
+        }
+
+        Set<String> termSet = new HashSet<>(terms);
+        List<SearchHit> searchHits = hits.stream()
+                .filter(hit -> blogs.containsKey(hit.summary().id()))
+                .map(hit -> new SearchHit(hit.summary(), hit.score(),
+                        snippet(hit.summary(), blogs.get(hit.summary().id()).getContent(), termSet)))
+                .toList();
+        return new SearchResults(searchHits, result.total() - dropped, pageNumber, pageSize);
+    }
+
+    private static String snippet(BlogSummary summary, String content, Set<String> terms) {
+        for (String text : new String[]{content, summary.subtitle(), summary.title()}) {
+            String snippet = highlight(text, terms);
+            if (snippet != null) {
+                return snippet;
+            }
+        }
+        // Matched on the topic only, fall back to the start of the content
+        if (content == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(content.substring(0, Math.min(content.length(), 2 * SNIPPET_RADIUS)));
+    }
+
+    // Window around the first matching word, with every match inside it wrapped in <mark>
+    private static String highlight(String text, Set<String> terms) {
+        List<TextAnalyzer.Token> matches = TextAnalyzer.tokens(text).stream()
+                .filter(token -> terms.contains(token.term()))
+                .toList();
+        if (matches.isEmpty()) {
+            return null;
+        }
+        int from = Math.max(0, matches.get(0).start() - SNIPPET_RADIUS);
+        int to = Math.min(text.length(), matches.get(0).end() + SNIPPET_RADIUS);
+
+        StringBuilder snippet = new StringBuilder();
+        if (from > 0) {
+            snippet.append("...");
+        }
+        int position = from;
+        for (TextAnalyzer.Token match : matches) {
+            if (match.end() > to) {
+                break;
+            }
+            snippet.append(HtmlUtils.htmlEscape(text.substring(position, match.start())))
+                    .append("<mark>")
+                    .append(HtmlUtils.htmlEscape(text.substring(match.start(), match.end())))
+                    .append("</mark>");
+            position = match.end();
+        }
+        snippet.append(HtmlUtils.htmlEscape(text.substring(position, to)));
+        if (to < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+}
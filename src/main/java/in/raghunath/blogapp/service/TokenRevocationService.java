@@ -0,0 +1,99 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.RevokedToken;
+import in.raghunath.blogapp.util.TokenRevocationList;
+import in.raghunath.blogapp.util.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Revokes access tokens before they expire (logout), on every node.
+ * A revocation is written to revoked_tokens and added to this node's TokenRevocationList; the other
+ * nodes pick it up on their next poll, so it takes effect cluster-wide within poll-interval.
+ * The list is reloaded from the collection at startup. Tokens without a jti (issued before jti
+ * was added) cannot be revoked individually and simply run out within one access-token lifetime.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenRevocationList revocationList;
+    private final MongoTemplate mongoTemplate;
+
+    // Re-read a little before the last poll, revokedAt comes from other nodes' clocks
+    @Value("${app.security.revocation.poll-overlap:5s}")
+    private Duration pollOverlap;
+
+    private volatile Instant lastPoll = Instant.EPOCH;
+
+    public TokenRevocationService(TokenRevocationList revocationList, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.revocationList = revocationList;
+        this.mongoTemplate = mongoTemplate;
+        Gauge.builder("tokens.revoked", revocationList, TokenRevocationList::size).register(meterRegistry);
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.tokenId() == null) {
+            log.info("Access token of user '{}' has no jti, it stays valid until {}", token.username(), token.expiresAt());
+            return;
+        }
+        mongoTemplate.save(new RevokedToken(token.tokenId().toString(), token.username(), token.expiresAt(), Instant.now()));
+        revocationList.revoke(token.tokenId(), token.expiresAt());
+        log.debug("Revoked access token {} of user '{}'", token.tokenId(), token.username());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant start = Instant.now();
+        int loaded = pollSince(Instant.EPOCH);
+        lastPoll = start;
+        log.info("Loaded {} access-token revocation(s)", loaded);
+    }
+
+    @Scheduled(initialDelayString = "${app.security.revocation.poll-interval}",
+            fixedDelayString = "${app.security.revocation.poll-interval}")
+    public void poll() {
+        Instant start = Instant.now();
+        try {
+            pollSince(lastPoll.minus(pollOverlap));
+            lastPoll = start;
+        } catch (RuntimeException e) {
+            log.error("Polling access-token revocations failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.bucket-width}")
+    public void rotate() {
+        revocationList.rotate();
+    }
+
+    // Revocations are idempotent, so re-reading the overlap is harmless
+    private int pollSince(Instant since) {
+        int count = 0;
+        try (Stream<RevokedToken> revoked = mongoTemplate.stream(
+                query(where("revokedAt").gte(since).and("expiresAt").gt(Instant.now())), RevokedToken.class)) {
+            for (RevokedToken token : (Iterable<RevokedToken>) revoked::iterator) {
+                revocationList.revoke(UUID.fromString(token.getId()), token.getExpiresAt());
+                count++;
+            }
+        }
+        return count;
+    }
+}
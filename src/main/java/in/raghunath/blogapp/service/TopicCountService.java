@@ -0,0 +1,170 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.TopicCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Published-blog counts per topic in the topic_counts collection, for GET /api/topics.
+ * BlogService (and ImportService) apply a +1/-1 delta after each write that publishes, unpublishes,
+ * deletes or re-topics a blog, using the state its atomic write returned, so concurrent writes
+ * never read the same before-state. There is no transaction around blog write and counter update:
+ * a node dying in between, or a failed counter write, leaves a counter off by one until the
+ * scheduled recompute, which rebuilds every counter from the blogs (one node per run).
+ */
+@Service
+public class TopicCountService {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicCountService.class);
+
+    private static final String RECOMPUTE_JOB = "topic-count-recompute";
+
+    private final MongoTemplate mongoTemplate;
+    private final JobLockService jobLockService;
+
+    public TopicCountService(MongoTemplate mongoTemplate, JobLockService jobLockService) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobLockService = jobLockService;
+    }
+
+    // Topics with at least one published blog, most used first
+    public List<TopicCount> getTopics() {
+        return mongoTemplate.find(query(where("publishedCount").gt(0))
+                        .with(Sort.by(Sort.Order.desc("publishedCount"), Sort.Order.asc("id"))),
+                TopicCount.class);
+    }
+
+    public void published(String topic) {
+        adjust(topic, 1);
+    }
+
+    public void unpublished(String topic) {
+        adjust(topic, -1);
+    }
+
+    // A published blog changed topic
+    public void moved(String fromTopic, String toTopic) {
+        if (key(fromTopic) != null && key(fromTopic).equals(key(toTopic))) {
+            return;
+        }
+        adjust(fromTopic, -1);
+        adjust(toTopic, 1);
+    }
+
+    // Many published blogs at once (imports): one upsert per distinct topic
+    public void publishedAll(Collection<String> topics) {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String topic : topics) {
+            String key = key(topic);
+            if (key != null) {
+                deltas.merge(key, 1, Integer::sum);
+                names.putIfAbsent(key, topic);
+            }
+        }
+        deltas.forEach((key, delta) -> upsert(key, names.get(key), delta));
+    }
+
+    private void adjust(String topic, int delta) {
+        String key = key(topic);
+        if (key != null) {
+            upsert(key, topic, delta);
+        }
+    }
+
+    private void upsert(String key, String name, int delta) {
+        try {
+            mongoTemplate.upsert(query(where("id").is(key)),
+                    new Update().inc("publishedCount", delta).setOnInsert("name", name).set("updatedAt", Instant.now()),
+                    TopicCount.class);
+        } catch (RuntimeException e) {
+            // The blog write has happened, don't fail it over a counter; the recompute fixes the count
+            log.warn("Could not adjust the count of topic '{}' by {}", key, delta, e);
+        }
+    }
+
+    // Blank topics are not counted (and can't be browsed)
+    static String key(String topic) {
+        return topic == null || topic.isBlank() ? null : topic.toLowerCase(Locale.ROOT);
+    }
+
+    @Scheduled(initialDelayString = "${app.topics.recompute.initial-delay}",
+            fixedDelayString = "${app.topics.recompute.interval}")
+    public void scheduledRecompute() {
+        if (!jobLockService.tryLock(RECOMPUTE_JOB, Duration.ofMinutes(10))) {
+            return;
+        }
+        try {
+            recompute();
+        } catch (RuntimeException e) {
+            log.error("Topic count recompute failed", e);
+        }
+    }
+
+    /**
+     * Replaces every counter with a fresh count from the blogs (one aggregation over the
+     * published ones) and drops topics that have none left. A delta applied while this runs
+     * may be overwritten; that is drift of the same kind and is corrected by the next run.
+     * @return how many counters were wrong
+     */
+    public int recompute() {
+        long start = System.currentTimeMillis();
+        // Grouped by exact spelling and folded here: $toLower only handles ASCII, key() does not
+        Aggregation countBySpelling = Aggregation.newAggregation(
+                Aggregation.match(where("isPublished").is(true).and("topic").nin(null, "")),
+                Aggregation.group("topic").count().as("publishedCount"));
+        Map<String, TopicCount> actual = new LinkedHashMap<>();
+        for (TopicCount spelling : mongoTemplate.aggregate(countBySpelling, Blog.class, TopicCount.class)) {
+            String key = key(spelling.getId());
+            if (key != null) {
+                actual.merge(key, new TopicCount(key, spelling.getId(), spelling.getPublishedCount(), null),
+                        (a, b) -> new TopicCount(key, a.getName(), a.getPublishedCount() + b.getPublishedCount(), null));
+            }
+        }
+        Map<String, Long> stored = new LinkedHashMap<>();
+        mongoTemplate.findAll(TopicCount.class).forEach(count -> stored.put(count.getId(), count.getPublishedCount()));
+
+        int corrected = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TopicCount.class);
+        for (TopicCount count : actual.values()) {
+            Long current = stored.remove(count.getId());
+            if (current == null || current != count.getPublishedCount()) {
+                bulk.upsert(query(where("id").is(count.getId())),
+                        new Update().set("publishedCount", count.getPublishedCount())
+                                .setOnInsert("name", count.getName())
+                                .set("updatedAt", Instant.now()));
+                corrected++;
+            }
+        }
+        if (corrected > 0) {
+            bulk.execute();
+        }
+        // What is left has no published blogs any more
+        if (!stored.isEmpty()) {
+            mongoTemplate.remove(query(where("id").in(stored.keySet())), TopicCount.class);
+            corrected += (int) stored.values().stream().filter(count -> count != 0).count();
+        }
+        log.info("Topic counts recomputed: {} topic(s), {} corrected in {} ms",
+                actual.size(), corrected, System.currentTimeMillis() - start);
+        return corrected;
+    }
+}
@@ -0,0 +1,135 @@
+package in.raghunath.blogapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import in.raghunath.blogapp.DTO.UploadJob;
+import in.raghunath.blogapp.exception.UploadCapacityException;
+import in.raghunath.blogapp.model.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Accepts image uploads without holding them in memory or on the request thread.
+ * The request only validates the file and spools it to disk (MultipartFile.transferTo, which
+ * moves or copies Tomcat's own temp file); storing it and its variants (ImageVariantService),
+ * attaching them and queueing the replaced images for deletion (ImageDeletionService) run later
+ * on imageUploadExecutor. Job state is kept in the uploadJobCache for app.uploads.job-ttl, on the
+ * node that accepted the upload.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    /**
+     * Stores the uploaded image and its variants on their owner (user, blog, ...).
+     * Returns the public ids of the images it replaced, so those can be removed.
+     */
+    @FunctionalInterface
+    public interface Attachment {
+        List<String> attach(String url, String publicId, List<ImageVariant> variants);
+    }
+
+    private final ImageDeletionService imageDeletionService;
+    private final ImageVariantService imageVariantService;
+    private final ExecutorService executor;
+    private final Cache<String, UploadJob> jobs;
+
+    @Value("${app.uploads.spool-dir:${java.io.tmpdir}}")
+    private Path spoolDir;
+
+    public UploadJobService(ImageDeletionService imageDeletionService, ImageVariantService imageVariantService,
+                            @Qualifier("imageUploadExecutor") ExecutorService executor,
+                            @Qualifier("uploadJobCache") Cache<String, UploadJob> jobs) {
+        this.imageDeletionService = imageDeletionService;
+        this.imageVariantService = imageVariantService;
+        this.executor = executor;
+        this.jobs = jobs;
+    }
+
+    public UploadJob submit(MultipartFile file, String username, String folderName, Attachment attachment) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty or null");
+        }
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("Invalid file type. Only images are allowed.");
+        }
+
+        Path spooled = Files.createTempFile(spoolDir, "upload-", ".tmp");
+        UploadJob job = UploadJob.queued(UUID.randomUUID().toString(), username);
+        try {
+            file.transferTo(spooled);
+            jobs.put(job.id(), job);
+            executor.execute(() -> run(job, spooled, contentType, folderName, attachment));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id());
+            deleteQuietly(spooled);
+            log.warn("Upload queue full, rejected upload from user '{}'", username);
+            throw new UploadCapacityException();
+        } catch (IOException | RuntimeException e) {
+            jobs.invalidate(job.id());
+            deleteQuietly(spooled);
+            throw e;
+        }
+        log.info("User '{}': queued upload job {} ({} bytes)", username, job.id(), file.getSize());
+        return job;
+    }
+
+    // Jobs are only visible to the user who submitted them
+    public UploadJob getJob(String jobId, String username) {
+        UploadJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.username().equals(username)) {
+            throw new BlogService.ResourceNotFoundException("Upload job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(UploadJob job, Path spooled, String contentType, String folderName, Attachment attachment) {
+        jobs.put(job.id(), job.running());
+        List<String> newPublicIds = List.of();
+        try {
+            ImageVariantService.Result stored = imageVariantService.store(spooled, contentType, folderName);
+            newPublicIds = new ArrayList<>(ImageVariantService.publicIds(stored.variants()));
+            newPublicIds.add(stored.original().publicId());
+
+            // Attach first, then queue the old images for deletion: a crash in between leaves orphans
+            // (ImageReconciliationService finds those), never a broken link
+            List<String> replacedPublicIds = attachment.attach(stored.original().url(), stored.original().publicId(), stored.variants());
+            newPublicIds = List.of();
+            jobs.put(job.id(), job.succeeded(stored.original().url(), stored.original().publicId(), stored.variants()));
+            imageDeletionService.enqueue(replacedPublicIds);
+        } catch (Exception e) {
+            log.error("Upload job {} for user '{}' failed", job.id(), job.username(), e);
+            jobs.put(job.id(), job.failed(e instanceof IllegalStateException || e instanceof IllegalArgumentException
+                    ? e.getMessage() : "Image upload failed."));
+            try {
+                imageDeletionService.enqueue(newPublicIds);
+            } catch (RuntimeException cleanupFailure) {
+                log.error("Upload job {}: failed to queue cleanup of uploaded images {}", job.id(), newPublicIds, cleanupFailure);
+            }
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}", path, e);
+        }
+    }
+}
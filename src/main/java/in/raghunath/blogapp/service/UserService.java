@@ -1,12 +1,26 @@
 package in.raghunath.blogapp.service;
 
 import in.raghunath.blogapp.DTO.ApiResponse;
+import in.raghunath.blogapp.DTO.BulkUserError;
+import in.raghunath.blogapp.DTO.BulkUserResult;
 import in.raghunath.blogapp.DTO.SignupRequest;
+import in.raghunath.blogapp.DTO.UploadJob;
+import com.mongodb.bulk.BulkWriteError;
+import in.raghunath.blogapp.exception.DuplicateUserException;
+import in.raghunath.blogapp.model.ImageVariant;
+import in.raghunath.blogapp.model.Role;
 import in.raghunath.blogapp.model.User;
 import in.raghunath.blogapp.repo.UserRepo;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -18,10 +32,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class UserService {
@@ -30,12 +52,28 @@ public class UserService {
 
     private final UserRepo userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final ImageUploadService imageUploadService;
+    private final ImageDeletionService imageDeletionService;
+    private final MyUserDetailsService userDetailsService;
+    private final UploadJobService uploadJobService;
+    private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+
+    @Value("${app.users.bulk.max-size}")
+    private int bulkMaxSize;
+
+    @Value("${app.users.bulk.batch-size}")
+    private int bulkBatchSize;
 
-    public UserService(UserRepo userRepository, PasswordEncoder passwordEncoder, ImageUploadService imageUploadService) {
+    public UserService(UserRepo userRepository, PasswordEncoder passwordEncoder, ImageDeletionService imageDeletionService,
+                       MyUserDetailsService userDetailsService, UploadJobService uploadJobService, MongoTemplate mongoTemplate,
+                       Validator validator) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.imageUploadService = imageUploadService;
+        this.imageDeletionService = imageDeletionService;
+        this.userDetailsService = userDetailsService;
+        this.uploadJobService = uploadJobService;
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
     }
 
     private String getCurrentUsername() {
@@ -62,34 +100,131 @@ public class UserService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
-    public void deleteUserById(String id) {
-        if(!userRepository.existsById(id)){
-            throw new UserNotFoundException("User not found with id: "+ id);
+    /**
+     * Creates many users at once, for admins provisioning accounts. Invalid requests are reported
+     * and skipped, the rest are inserted with unordered bulk inserts of batch-size, so one taken
+     * username or email fails only its own entry instead of the whole batch.
+     * Passwords are hashed in parallel, but never more at a time than half the cores (the hashing
+     * pool has one thread per core), so sign-ins keep the other half while a bulk request runs.
+     */
+    public BulkUserResult provisionUsers(List<SignupRequest> requests) {
+        if (requests.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("At most " + bulkMaxSize + " users can be created per request.");
+        }
+        List<BulkUserError> errors = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SignupRequest request = requests.get(i);
+            if (request == null) {
+                errors.add(new BulkUserError(i, null, null, "Missing user"));
+                continue;
+            }
+            Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+            if (violations.isEmpty()) {
+                positions.add(i);
+            } else {
+                ConstraintViolation<SignupRequest> violation = violations.iterator().next();
+                errors.add(new BulkUserError(i, request.getUsername(), violation.getPropertyPath().toString(), violation.getMessage()));
+            }
+        }
+
+        List<User> users = hashAll(requests, positions);
+        int created = 0;
+        for (int from = 0; from < users.size(); from += bulkBatchSize) {
+            int to = Math.min(from + bulkBatchSize, users.size());
+            created += insertBatch(users.subList(from, to), positions.subList(from, to), errors);
         }
-        User currentUser = getUserByUsername(getCurrentUsername());
-        String username=getCurrentUsername();
-        String oldPublicId = currentUser.getProfilePhotoPublicId();
+        errors.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        logger.info("Bulk user provisioning: {} requested, {} created, {} failed", requests.size(), created, errors.size());
+        return new BulkUserResult(requests.size(), created, errors);
+    }
 
-        if (oldPublicId != null && !oldPublicId.isEmpty()) {
+    private List<User> hashAll(List<SignupRequest> requests, List<Integer> positions) {
+        Semaphore permits = new Semaphore(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        List<Future<User>> futures = new ArrayList<>(positions.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int position : positions) {
+                SignupRequest request = requests.get(position);
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        User user = new User();
+                        user.setUsername(request.getUsername());
+                        user.setPassword(passwordEncoder.encode(request.getPassword()));
+                        user.setEmail(request.getEmail());
+                        user.setRoles(Set.of(Role.ROLE_USER));
+                        return user;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<User> users = new ArrayList<>(futures.size());
             try {
-                imageUploadService.delete(oldPublicId);
-            } catch (IOException e) {
-                logger.error("User '{}': Failed to delete old profile photo (public_id: {}) from Cloudinary. Proceeding with upload.", username, oldPublicId, e);
+                for (Future<User> future : futures) {
+                    users.add(future.get());
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                // Interrupts the remaining hashes (BoundedPasswordEncoder cancels its pool task),
+                // otherwise close() would wait for up to bulk max-size of them before the request fails
+                executor.shutdownNow();
+                throw e;
+            }
+            return users;
+        } catch (ExecutionException e) {
+            // e.g. PasswordHashingCapacityException: nothing has been inserted yet, fail the whole request
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Hashing passwords failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        }
+    }
 
-            } catch (Exception e) {
-                logger.error("User '{}': Unexpected error deleting old profile photo (public_id: {})", username, oldPublicId, e);
+    // Returns how many of the batch were inserted, adding an error for each one that was not
+    private int insertBatch(List<User> batch, List<Integer> positions, List<BulkUserError> errors) {
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                    .insert(batch)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                User user = batch.get(error.getIndex());
+                if (error.getCode() == 11000) {
+                    String field = DuplicateUserException.fieldOf(error.getMessage());
+                    String message = new DuplicateUserException(field,
+                            "email".equals(field) ? user.getEmail() : user.getUsername()).getMessage();
+                    errors.add(new BulkUserError(positions.get(error.getIndex()), user.getUsername(), field, message));
+                } else {
+                    errors.add(new BulkUserError(positions.get(error.getIndex()), user.getUsername(), null, error.getMessage()));
+                }
             }
-        } else {
-            logger.info("User '{}': No existing profile photo found to delete.", username);
+            // Unordered: every insert without an error went through
+            return batch.size() - e.getErrors().size();
         }
+    }
 
-        userRepository.deleteById(id);
+    // Removes the user in one write and queues the photo they had (not the caller's) for deletion
+    public void deleteUserById(String id) {
+        User deletedUser = mongoTemplate.findAndRemove(query(where("id").is(id)), User.class);
+        if (deletedUser == null) {
+            throw new UserNotFoundException("User not found with id: "+ id);
+        }
+        userDetailsService.evict(deletedUser.getUsername());
+
+        List<String> publicIds = new ArrayList<>(ImageVariantService.publicIds(deletedUser.getProfilePhotoVariants()));
+        publicIds.add(deletedUser.getProfilePhotoPublicId());
+        imageDeletionService.enqueue(publicIds);
     }
 
 
 
 
-    public Map<String, String> updateProfilePhoto(MultipartFile file)
+    // Spools the file and returns straight away, the upload itself runs as a job (see UploadJobService)
+    public UploadJob updateProfilePhoto(MultipartFile file)
             throws UsernameNotFoundException, IOException, IllegalArgumentException {
 
         String username = getCurrentUsername();
@@ -97,76 +232,27 @@ public class UserService {
             logger.error("Username could not be retrieved from Authentication object for profile photo upload.");
             throw new UsernameNotFoundException("Please login to upload images");
         }
-        User currentUser = getUserByUsername(getCurrentUsername());
-
-        String oldPublicId = currentUser.getProfilePhotoPublicId();
-
-        // 1. Delete old photo if it exists
-        if (oldPublicId != null && !oldPublicId.isEmpty()) {
-            logger.info("User '{}': Found old profile photo (public_id: {}), attempting deletion.", username, oldPublicId);
-            try {
-                imageUploadService.delete(oldPublicId);
-                logger.info("User '{}': Successfully deleted old profile photo from Cloudinary.", username);
-                // Important: Clear the old IDs from the user object immediately
-                currentUser.setProfilePhotoPublicId(null);
-                currentUser.setProfilePhotoUrl(null);
-                // Save this change *before* attempting the new upload for better state management
-                userRepository.save(currentUser);
-                logger.info("User '{}': Cleared old photo details from database.", username);
-            } catch (IOException e) {
-                // Log the error, but decide if we should proceed. Often, yes.
-                // The old photo might be orphaned, but we want the new one uploaded.
-                logger.error("User '{}': Failed to delete old profile photo (public_id: {}) from Cloudinary. Proceeding with upload.", username, oldPublicId, e);
-                // Still clear the IDs in the user object in case the DB save above didn't happen or we skipped it
-                currentUser.setProfilePhotoPublicId(null);
-                currentUser.setProfilePhotoUrl(null);
-                userRepository.save(currentUser); // Try saving the nullification again
-            } catch (Exception e) {
-                logger.error("User '{}': Unexpected error deleting old profile photo (public_id: {})", username, oldPublicId, e);
-                // Depending on policy, might re-throw or just log.
-            }
-        } else {
-            logger.info("User '{}': No existing profile photo found to delete.", username);
+        if (!userRepository.existsByUsername(username)) {
+            throw new UsernameNotFoundException("User not found: " + username);
         }
+        return uploadJobService.submit(file, username, "profile_photos",
+                (url, publicId, variants) -> attachProfilePhoto(username, url, publicId, variants));
+    }
 
-
-        // 2. Upload new photo
-        logger.info("User '{}': Uploading new profile photo.", username);
-        Map uploadResult;
-        try {
-            uploadResult = imageUploadService.upload(file, "profile_photos"); // Throws IOException or IllegalArgumentException
-        } catch (IOException | IllegalArgumentException e) {
-            logger.error("User '{}': Failed to upload new profile photo.", username, e);
-            // Re-throw the exception to be handled by the controller
-            throw e;
-        }
-
-
-        // 3. Update user entity with new details
-        String newImageUrl = (String) uploadResult.get("secure_url");
-        String newPublicId = (String) uploadResult.get("public_id");
-
-        if (newImageUrl == null || newPublicId == null) {
-            // This shouldn't happen if Cloudinary upload succeeded, but good to check.
-            logger.error("User '{}': Cloudinary upload succeeded but returned null URL/PublicID. Result: {}", username, uploadResult);
-            // Attempt to delete the potentially orphaned uploaded image
-            if (newPublicId != null) {
-                try { imageUploadService.delete(newPublicId); } catch (IOException ioex) { logger.error("Failed cleanup.", ioex); }
-            }
-            throw new IOException("Image upload failed to return necessary details from Cloudinary.");
+    // Swaps in the new photo in one write and hands back the old public ids (photo and variants) for deletion
+    private List<String> attachProfilePhoto(String username, String url, String publicId, List<ImageVariant> variants) {
+        Update update = new Update()
+                .set("profilePhotoUrl", url)
+                .set("profilePhotoPublicId", publicId)
+                .set("profilePhotoVariants", variants);
+        User previous = mongoTemplate.findAndModify(query(where("username").is(username)), update, User.class);
+        if (previous == null) {
+            throw new IllegalStateException("User " + username + " no longer exists");
         }
-
-
-        currentUser.setProfilePhotoUrl(newImageUrl);
-        currentUser.setProfilePhotoPublicId(newPublicId);
-        userRepository.save(currentUser);
-        logger.info("User '{}': Successfully updated profile photo details in database. New URL: {}", username, newImageUrl);
-
-        // 4. Return the results
-        Map<String, String> result = new HashMap<>();
-        result.put("url", newImageUrl);
-        result.put("publicId", newPublicId);
-        return result;
+        logger.info("User '{}': Successfully updated profile photo details in database. New URL: {}", username, url);
+        List<String> replaced = new ArrayList<>(ImageVariantService.publicIds(previous.getProfilePhotoVariants()));
+        replaced.add(previous.getProfilePhotoPublicId());
+        return replaced;
     }
 
 
@@ -0,0 +1,52 @@
+package in.raghunath.blogapp.util;
+
+import in.raghunath.blogapp.exception.InvalidCursorException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last blog on a page, used to seek to the next one.
+ * Feeds are ordered by (createdAt, id) descending, so the pair is unique and stable
+ * even when several blogs share the same timestamp.
+ */
+public record BlogCursor(Date createdAt, ObjectId id) {
+
+    /**
+     * @return null if the id is not an ObjectId, such a blog can't be paged past
+     */
+    public static BlogCursor of(Date createdAt, String id) {
+        if (id == null || !ObjectId.isValid(id)) {
+            return null;
+        }
+        ObjectId objectId = new ObjectId(id);
+        // Old blogs without createdAt get it from the id (CreatedAtBackfillService), seek from that already
+        return new BlogCursor(createdAt != null ? createdAt : objectId.getDate(), objectId);
+    }
+
+    // Encoded as base64url("<epochMillis>:<objectIdHex>") so clients treat it as opaque
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + id.toHexString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static BlogCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            long millis = Long.parseLong(raw.substring(0, separator));
+            String id = raw.substring(separator + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new BlogCursor(new Date(millis), new ObjectId(id));
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
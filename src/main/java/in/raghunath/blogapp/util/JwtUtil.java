@@ -5,12 +5,16 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct; // For key initialization
 import java.security.Key;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -18,6 +22,9 @@ import java.util.function.Function;
 @Slf4j
 public class JwtUtil {
 
+    // Claim carrying the user's authority names, lets the filter authenticate without a DB lookup
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -26,6 +33,9 @@ public class JwtUtil {
 
     private Key signingKey;
 
+    // Immutable and thread-safe once built, shared by every request
+    private JwtParser parser;
+
     @PostConstruct // Initialize the key after dependency injection
     public void init() {
         try {
@@ -35,6 +45,9 @@ public class JwtUtil {
             log.error("Invalid Base64 JWT secret key: {}", e.getMessage());
             throw new RuntimeException("Invalid JWT secret key configuration.");
         }
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     private Key getSigningKey() {
@@ -44,15 +57,41 @@ public class JwtUtil {
 
     // --- Access Token specific methods ---
 
-    public String generateAccessToken(String username) {
+    public String generateAccessToken(String username, Collection<? extends GrantedAuthority> authorities) {
+        List<String> roles = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
         return Jwts.builder()
                 .setSubject(username)
+                .claim(ROLES_CLAIM, roles)
+                .setId(UUID.randomUUID().toString()) // jti, what logout revokes
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + accessTokenExpirationMs)) // Use access token expiration
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Specify Algorithm explicitly
                 .compact();
     }
 
+    /**
+     * Parses and verifies an access token exactly once: signature, expiry and claims.
+     * Everything the filter needs comes back in the returned {@link VerifiedToken}.
+     *
+     * @throws ExpiredJwtException if the token has expired
+     * @throws IllegalArgumentException if the token is malformed, unsupported or badly signed
+     */
+    public VerifiedToken verifyAccessToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("JWT token has no subject or expiry");
+        }
+        return new VerifiedToken(
+                claims.getSubject(),
+                extractRoles(claims),
+                extractTokenId(claims),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant()
+        );
+    }
+
     // --- General JWT parsing methods ---
 
     public String getUsernameFromToken(String token) {
@@ -60,11 +99,30 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Null for tokens issued before roles were embedded
+    private static List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> values)) {
+            return null;
+        }
+        return values.stream().map(String::valueOf).toList();
+    }
+
+    // Only our own random UUIDs are revocable, anything else is treated as absent
+    private static UUID extractTokenId(Claims claims) {
+        if (claims.getId() == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(claims.getId());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            return parser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -90,23 +148,4 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    public boolean isTokenExpired(String token) {
-        try {
-            return extractClaim(token, Claims::getExpiration).before(new Date());
-        } catch(ExpiredJwtException e) {
-            // If parsing throws ExpiredJwtException, it is expired
-            return true;
-        } catch (Exception e) {
-            log.error("Could not determine token expiration", e);
-            // Treat unparsable tokens as expired/invalid
-            return true;
-        }
-    }
-
-    // Validate Access Token
-    public boolean validateAccessToken(String token, String username) {
-        final String usernameFromToken = getUsernameFromToken(token);
-        return (usernameFromToken.equals(username) && !isTokenExpired(token));
-    }
-
 }
\ No newline at end of file
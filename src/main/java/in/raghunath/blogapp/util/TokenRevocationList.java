@@ -0,0 +1,204 @@
+package in.raghunath.blogapp.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory set of revoked access tokens (by jti), checked by JwtAuthenticationFilter on every request.
+ * <p>
+ * A Bloom filter sits in front: for the usual token that was never revoked, the check is a handful
+ * of bit tests and allocates nothing. Only on a (possible) hit is the exact set consulted. That set is
+ * split into a ring of buckets by token expiry, bucket-width each; a bucket is dropped as a whole once
+ * every token in it has expired, and the Bloom filter is rebuilt from what is left, so memory follows
+ * the number of live revocations rather than growing forever.
+ * <p>
+ * Reads take no lock. Writes (revocations, rotation) are rare and serialised, so a rebuild never
+ * misses a concurrent add. Persistence and cross-node sharing are TokenRevocationService's job.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private record Bucket(long slot, Set<UUID> ids) {
+    }
+
+    private final long bucketMillis;
+    private final int expectedRevocations;
+    private final AtomicReferenceArray<Bucket> ring;
+    // Tokens expiring beyond the ring's span (a longer lifetime than configured), should stay empty
+    private final Map<UUID, Long> overflow = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Clock clock;
+    private volatile BloomFilter bloom;
+
+    @Autowired
+    public TokenRevocationList(@Value("${jwt.accessToken.expiration}") long maxTokenLifetimeMs,
+                               @Value("${app.security.revocation.bucket-width}") Duration bucketWidth,
+                               @Value("${app.security.revocation.expected-revocations}") int expectedRevocations) {
+        this(maxTokenLifetimeMs, bucketWidth, expectedRevocations, Clock.systemUTC());
+    }
+
+    // Tests move the clock instead of waiting for buckets to expire
+    TokenRevocationList(long maxTokenLifetimeMs, Duration bucketWidth, int expectedRevocations, Clock clock) {
+        this.clock = clock;
+        this.bucketMillis = bucketWidth.toMillis();
+        this.expectedRevocations = expectedRevocations;
+        // One bucket per width of the lifetime, plus the current, partly expired one and some slack
+        this.ring = new AtomicReferenceArray<>((int) (maxTokenLifetimeMs / bucketMillis) + 3);
+        this.bloom = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Allocation-free: two long reads from the id, a few bit tests, and only for a Bloom hit a set lookup.
+     */
+    public boolean isRevoked(UUID tokenId, Instant expiresAt) {
+        if (tokenId == null || !bloom.mightContain(tokenId.getMostSignificantBits(), tokenId.getLeastSignificantBits())) {
+            return false;
+        }
+        long slot = expiresAt.toEpochMilli() / bucketMillis;
+        Bucket bucket = ring.get(Math.floorMod(slot, ring.length()));
+        if (bucket != null && bucket.slot() == slot && bucket.ids().contains(tokenId)) {
+            return true;
+        }
+        return !overflow.isEmpty() && overflow.containsKey(tokenId);
+    }
+
+    /**
+     * Adds a revocation. Tokens that have already expired are ignored, they are rejected anyway.
+     */
+    public void revoke(UUID tokenId, Instant expiresAt) {
+        long now = clock.millis();
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        long slot = expiresAtMillis / bucketMillis;
+        writeLock.lock();
+        try {
+            if (slot - now / bucketMillis >= ring.length() - 1) {
+                overflow.put(tokenId, expiresAtMillis);
+            } else {
+                int index = Math.floorMod(slot, ring.length());
+                Bucket bucket = ring.get(index);
+                if (bucket == null || bucket.slot() != slot) {
+                    // Whatever held this position belongs to tokens that expired a full ring ago
+                    bucket = new Bucket(slot, ConcurrentHashMap.newKeySet());
+                    ring.set(index, bucket);
+                }
+                bucket.ids().add(tokenId);
+            }
+            bloom.put(tokenId.getMostSignificantBits(), tokenId.getLeastSignificantBits());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops buckets whose tokens have all expired and rebuilds the Bloom filter from the rest.
+     * Called every bucket-width by TokenRevocationService.
+     */
+    public void rotate() {
+        long now = clock.millis();
+        writeLock.lock();
+        try {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, size()), FALSE_POSITIVE_RATE);
+            for (int i = 0; i < ring.length(); i++) {
+                Bucket bucket = ring.get(i);
+                if (bucket == null) {
+                    continue;
+                }
+                // Every token in the bucket expires before the end of its slot
+                if ((bucket.slot() + 1) * bucketMillis <= now) {
+                    ring.set(i, null);
+                    continue;
+                }
+                bucket.ids().forEach(id -> rebuilt.put(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+            }
+            overflow.values().removeIf(expiresAt -> expiresAt <= now);
+            overflow.keySet().forEach(id -> rebuilt.put(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+            bloom = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Revocations held, including ones whose bucket has expired but not been rotated out yet
+    public int size() {
+        int size = overflow.size();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null) {
+                size += bucket.ids().size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Standard Bloom filter over 128-bit ids, k probes by double hashing. The bits are an
+     * AtomicLongArray so a lock-free reader sees bits set by a writer on another thread.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(long high, long low) {
+            long h1 = mix(high ^ low);
+            long h2 = mix(low + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(long high, long low) {
+            long h1 = mix(high ^ low);
+            long h2 = mix(low + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Murmur3 fmix64: random UUIDs are already uniform, but a jti need not be
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb93fe53a87c7L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
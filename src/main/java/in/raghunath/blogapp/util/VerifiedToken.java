@@ -0,0 +1,19 @@
+package in.raghunath.blogapp.util;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims of an access token whose signature and expiry JwtUtil has already checked.
+ * Immutable, so it can be shared freely once verified.
+ *
+ * @param roles   authority names, null for tokens issued before roles were embedded
+ * @param tokenId the jti, for revocation (TokenRevocationList); null for tokens issued before it was set
+ */
+public record VerifiedToken(String username, List<String> roles, UUID tokenId, Instant issuedAt, Instant expiresAt) {
+
+    public VerifiedToken {
+        roles = roles != null ? List.copyOf(roles) : null;
+    }
+}
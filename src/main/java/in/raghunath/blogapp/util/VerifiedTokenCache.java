@@ -0,0 +1,56 @@
+package in.raghunath.blogapp.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Remembers access tokens JwtUtil has already verified, so a client repeating the same
+ * token for its whole lifetime pays for one HMAC check and JSON decode, then only a hash lookup.
+ * Keys are SHA-256 digests, the raw bearer tokens are never retained. Failed verifications are
+ * not cached. Hit ratio is published as cache.gets{cache=verifiedTokens}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+    private final MessageDigest digestPrototype;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              @Qualifier("verifiedTokenClaimsCache") Cache<ByteBuffer, VerifiedToken> cache) throws NoSuchAlgorithmException {
+        this.jwtUtil = jwtUtil;
+        this.cache = cache;
+        this.digestPrototype = MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * Same contract as {@link JwtUtil#verifyAccessToken(String)}.
+     */
+    public VerifiedToken verify(String token) {
+        ByteBuffer key = digest(token);
+        VerifiedToken verifiedToken = cache.getIfPresent(key);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
+        verifiedToken = jwtUtil.verifyAccessToken(token);
+        cache.put(key, verifiedToken);
+        return verifiedToken;
+    }
+
+    // ByteBuffer compares and hashes by content, so it works as a map key for the digest bytes
+    private ByteBuffer digest(String token) {
+        try {
+            MessageDigest digest = (MessageDigest) digestPrototype.clone();
+            // UTF-8 is lossless (ASCII would turn every other character into ?), and the same bytes for a compact JWT
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 MessageDigest is not cloneable", e);
+        }
+    }
+}
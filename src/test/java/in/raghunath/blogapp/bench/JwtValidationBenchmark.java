@@ -0,0 +1,154 @@
+package in.raghunath.blogapp.bench;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.raghunath.blogapp.util.JwtUtil;
+import in.raghunath.blogapp.util.TokenRevocationList;
+import in.raghunath.blogapp.util.VerifiedToken;
+import in.raghunath.blogapp.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost in JwtAuthenticationFilter, before and after the single-parse pipeline.
+ * <ul>
+ *   <li>{@code legacyTriplePass}: what the filter used to do - three parses, each with a freshly
+ *   built parser (username, then username again and expiry inside validateAccessToken), plus a
+ *   new WebAuthenticationDetailsSource.</li>
+ *   <li>{@code singlePass}: JwtUtil.verifyAccessToken with the shared parser and a shared details source.</li>
+ *   <li>{@code cachedVerify}: the same token served from VerifiedTokenCache, i.e. one SHA-256 and a lookup.</li>
+ *   <li>{@code revocationCheck}: TokenRevocationList.isRevoked for a live token, with 10k other tokens revoked.
+ *   Should report (close to) 0 B/op.</li>
+ *   <li>{@code cachedVerifyAndRevocationCheck}: what the filter does per request now.</li>
+ * </ul>
+ * Run with the GC profiler to compare allocations (gc.alloc.rate.norm is bytes per request):
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath in.raghunath.blogapp.bench.JwtValidationBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private TokenRevocationList revocationList;
+    private VerifiedToken verified;
+    private Key signingKey;
+    private String token;
+    private MockHttpServletRequest request;
+    private final WebAuthenticationDetailsSource sharedDetailsSource = new WebAuthenticationDetailsSource();
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = new byte[32];
+        for (int i = 0; i < keyBytes.length; i++) {
+            keyBytes[i] = (byte) (i * 7 + 1);
+        }
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", Base64.getEncoder().encodeToString(keyBytes));
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpirationMs", 900_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateAccessToken("benchmark-user", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        try {
+            verifiedTokenCache = new VerifiedTokenCache(jwtUtil, Caffeine.newBuilder().maximumSize(1_000).build());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        revocationList = new TokenRevocationList(900_000L, Duration.ofMinutes(1), 100_000);
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        for (int i = 0; i < 10_000; i++) {
+            revocationList.revoke(UUID.randomUUID(), expiresAt);
+        }
+        verified = verifiedTokenCache.verify(token);
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+    }
+
+    @Benchmark
+    public void legacyTriplePass(Blackhole blackhole) {
+        String username = legacyParse().getSubject();
+        boolean valid = legacyParse().getSubject().equals(username)
+                && !legacyParse().getExpiration().before(new Date());
+        blackhole.consume(valid);
+        blackhole.consume(new WebAuthenticationDetailsSource().buildDetails(request));
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        VerifiedToken verifiedToken = jwtUtil.verifyAccessToken(token);
+        blackhole.consume(verifiedToken);
+        blackhole.consume(sharedDetailsSource.buildDetails(request));
+    }
+
+    @Benchmark
+    public void cachedVerify(Blackhole blackhole) {
+        blackhole.consume(verifiedTokenCache.verify(token));
+        blackhole.consume(sharedDetailsSource.buildDetails(request));
+    }
+
+    @Benchmark
+    public boolean revocationCheck() {
+        return revocationList.isRevoked(verified.tokenId(), verified.expiresAt());
+    }
+
+    @Benchmark
+    public void cachedVerifyAndRevocationCheck(Blackhole blackhole) {
+        VerifiedToken verifiedToken = verifiedTokenCache.verify(token);
+        blackhole.consume(revocationList.isRevoked(verifiedToken.tokenId(), verifiedToken.expiresAt()));
+        blackhole.consume(sharedDetailsSource.buildDetails(request));
+    }
+
+    // The old JwtUtil.extractAllClaims: a new parser for every call
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package in.raghunath.blogapp.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test against a running instance, to compare the throughput ceiling
+ * of platform-thread and virtual-thread request handling.
+ * Each step runs {@code concurrency} clients that send the next request as soon as the previous
+ * one completes; the concurrency is doubled every step so the point where throughput stops
+ * growing (and latency takes off) shows up in the table.
+ * <p>
+ * Start the app once per mode, against the same database:
+ * <pre>
+ * VIRTUAL_THREADS_ENABLED=false mvn spring-boot:run
+ * VIRTUAL_THREADS_ENABLED=true  mvn spring-boot:run
+ * </pre>
+ * and run the driver against each:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath in.raghunath.blogapp.bench.ThroughputLoadDriver http://localhost:8080/api/blogs 50 1600 20"
+ * </pre>
+ * Arguments: url, starting concurrency, max concurrency, seconds per step. An optional fifth
+ * argument is sent as a bearer token. The default /api/blogs mostly waits on Mongo; above
+ * Tomcat's 200 threads the platform-thread mode queues while the virtual-thread mode keeps scaling
+ * until Mongo's connection pool (spring.data.mongodb.uri maxPoolSize) becomes the limit.
+ */
+public class ThroughputLoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/blogs");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int maxConcurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1600;
+        Duration step = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 20);
+        String token = args.length > 4 ? args[4] : null;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        // The client side must not be the bottleneck: one virtual thread per simulated user
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "concurrency", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+            for (; concurrency <= maxConcurrency; concurrency *= 2) {
+                runStep(client, request, concurrency, Duration.ofSeconds(3)); // warm-up, not reported
+                StepResult result = runStep(client, request, concurrency, step);
+                System.out.printf("%-12d %12.1f %10.1f %10.1f %10.1f %10d%n", concurrency,
+                        result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                        result.percentile(1.0), result.errors());
+            }
+        }
+    }
+
+    private static StepResult runStep(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                LatencyLog log = new LatencyLog();
+                int slot = i;
+                users.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        log.add(System.nanoTime() - start);
+                    }
+                    latencies[slot] = log.toArray();
+                });
+            }
+        } // close() waits for every user to finish, which also publishes their latencies
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new StepResult(all, errors.get(), duration);
+    }
+
+    private record StepResult(long[] sortedLatencies, long errors, Duration duration) {
+
+        double throughput() {
+            return sortedLatencies.length / (duration.toMillis() / 1000.0);
+        }
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    // Per-user latency buffer, so recording a sample never contends with other users
+    private static final class LatencyLog {
+        private long[] samples = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(samples, size);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package in.raghunath.blogapp.repo;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import in.raghunath.blogapp.model.Blog;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every BlogRepo query against a real MongoDB, captures the command the driver sends
+ * and explains it. Fails if any winning plan contains a COLLSCAN stage, i.e. if a query or
+ * index definition on Blog drifts so that an access path is no longer covered.
+ */
+@DataMongoTest(properties = "spring.data.mongodb.database=blogapp_index_test")
+@Testcontainers(disabledWithoutDocker = true)
+class BlogRepoIndexCoverageTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    // Same order BlogService pages with
+    private static final Pageable PAGE = PageRequest.of(0, 21, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+
+    private static final List<BsonDocument> capturedFinds = Collections.synchronizedList(new ArrayList<>());
+
+    @TestConfiguration
+    static class CommandCaptureConfig {
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureBlogQueries() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    BsonDocument command = event.getCommand();
+                    if ("find".equals(event.getCommandName()) && "blogs".equals(command.getString("find").getValue())) {
+                        capturedFinds.add(command.clone());
+                    }
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private BlogRepo blogRepo;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Date now = new Date();
+    private final ObjectId lastId = new ObjectId();
+
+    @BeforeEach
+    void setUp() {
+        blogRepo.deleteAll();
+        IndexOperations indexOps = mongoTemplate.indexOps(Blog.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Blog.class)
+                .forEach(indexOps::ensureIndex);
+
+        for (int i = 0; i < 10; i++) {
+            Blog blog = new Blog();
+            blog.setAuthorUsername(i % 2 == 0 ? "alice" : "bob");
+            blog.setTopic(i % 3 == 0 ? "Java" : "Mongo");
+            blog.setTitle("Post " + i);
+            blog.setContent("Body " + i);
+            blog.setIsPublished(i % 4 != 0);
+            blog.setCreatedAt(new Date(now.getTime() - i * 1000L));
+            blogRepo.save(blog);
+        }
+        capturedFinds.clear();
+    }
+
+    @Test
+    void adminListingUsesIndex() {
+        assertIndexed(() -> blogRepo.findAllBy(PAGE));
+        assertIndexed(() -> blogRepo.findAllAfter(now, lastId, PAGE));
+    }
+
+    @Test
+    void publishedFeedUsesIndex() {
+        assertIndexed(() -> blogRepo.findByIsPublishedTrue(PAGE));
+        assertIndexed(() -> blogRepo.findPublishedAfter(now, lastId, PAGE));
+    }
+
+    @Test
+    void unpublishedListingUsesIndex() {
+        assertIndexed(() -> blogRepo.findByIsPublishedFalse(PAGE));
+        assertIndexed(() -> blogRepo.findUnpublishedAfter(now, lastId, PAGE));
+    }
+
+    @Test
+    void authorListingsUseIndex() {
+        assertIndexed(() -> blogRepo.findByAuthorUsernameAndIsPublishedTrue("alice", PAGE));
+        assertIndexed(() -> blogRepo.findPublishedByAuthorAfter("alice", now, lastId, PAGE));
+        assertIndexed(() -> blogRepo.findByAuthorUsernameAndIsPublishedFalse("alice", PAGE));
+        assertIndexed(() -> blogRepo.findUnpublishedByAuthorAfter("alice", now, lastId, PAGE));
+    }
+
+    @Test
+    void topicListingUsesCollatedIndex() {
+        assertIndexed(() -> blogRepo.findPublishedByTopic("jAvA", PAGE));
+        assertIndexed(() -> blogRepo.findPublishedByTopicAfter("jAvA", now, lastId, PAGE));
+    }
+
+    @Test
+    void singleBlogLookupUsesIndex() {
+        assertIndexed(() -> blogRepo.findByIdAndIsPublishedTrue(lastId.toHexString()));
+        assertIndexed(() -> blogRepo.findAuthorById(lastId.toHexString()));
+        assertIndexed(() -> blogRepo.findVersionById(lastId.toHexString()));
+    }
+
+    @Test
+    void searchSnippetLookupUsesIndex() {
+        assertIndexed(() -> blogRepo.findContentByIdIn(List.of(lastId.toHexString())));
+    }
+
+    private void assertIndexed(Runnable query) {
+        capturedFinds.clear();
+        query.run();
+        assertFalse(capturedFinds.isEmpty(), "Query did not reach the blogs collection");
+
+        for (BsonDocument find : new ArrayList<>(capturedFinds)) {
+            BsonDocument explain = new BsonDocument("explain", withoutSessionFields(find))
+                    .append("verbosity", new BsonString("queryPlanner"));
+            Document result = mongoTemplate.getDb().runCommand(explain);
+            Object winningPlan = result.get("queryPlanner", Document.class).get("winningPlan");
+            if (containsCollScan(winningPlan)) {
+                fail("COLLSCAN for " + find.toJson() + "\nwinning plan: " + ((Document) winningPlan).toJson());
+            }
+        }
+    }
+
+    // explain does not accept the generic command arguments ($db, lsid, $clusterTime, ...)
+    private static BsonDocument withoutSessionFields(BsonDocument command) {
+        BsonDocument cleaned = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid")) {
+                cleaned.append(key, value);
+            }
+        });
+        return cleaned;
+    }
+
+    // Classic and SBE plans nest stages differently, so look everywhere
+    private static boolean containsCollScan(Object node) {
+        if (node instanceof Map<?, ?> map) {
+            if ("COLLSCAN".equals(map.get("stage"))) {
+                return true;
+            }
+            return map.values().stream().anyMatch(BlogRepoIndexCoverageTests::containsCollScan);
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(BlogRepoIndexCoverageTests::containsCollScan);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package in.raghunath.blogapp.search;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EnglishStemmerTests {
+
+    @ParameterizedTest
+    @CsvSource({
+            // Inflections fold onto one stem
+            "publishing, publish",
+            "published, publish",
+            "publishes, publish",
+            "running, run",
+            "hopping, hop",
+            "falling, fall",
+            "filing, file",
+            // Plurals (step 1a)
+            "caresses, caress",
+            "ponies, poni",
+            "cats, cat",
+            // -eed, -y and derivational suffixes (steps 1b, 1c, 2, 3)
+            "agreed, agre",
+            "happy, happi",
+            "relational, relat",
+            "conditional, condition",
+            // A short cvc stem keeps its e
+            "hope, hope",
+            // Three letters or fewer are left alone
+            "go, go",
+            "sky, sky"
+    })
+    void stems(String word, String stem) {
+        assertEquals(stem, EnglishStemmer.stem(word));
+    }
+}
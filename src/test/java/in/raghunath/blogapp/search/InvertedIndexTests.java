@@ -0,0 +1,111 @@
+package in.raghunath.blogapp.search;
+
+import in.raghunath.blogapp.DTO.BlogSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTests {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private void put(String id, String title, String subtitle, String topic, String content) {
+        BlogSummary summary = new BlogSummary(id, "author", topic, title, subtitle, null, null, true,
+                null, null, null, List.of(), 0L);
+        index.put(summary, new String[]{title, subtitle, topic, content});
+    }
+
+    private List<String> ids(String query, int limit) {
+        return index.search(TextAnalyzer.terms(query), limit).hits().stream()
+                .map(hit -> hit.summary().id())
+                .toList();
+    }
+
+    @Test
+    void titleMatchesOutrankSubtitleTopicAndContentMatches() {
+        put("content", "Weekly notes", "", "misc", "Some thoughts about kotlin coroutines");
+        put("title", "Kotlin coroutines", "", "misc", "Some thoughts");
+        put("subtitle", "Weekly notes", "Kotlin coroutines", "misc", "Some thoughts");
+
+        assertEquals(List.of("title", "subtitle", "content"), ids("kotlin coroutines", 10));
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        put("common", "Java tips", "", "", "");
+        put("rare", "Scala tips", "", "", "");
+        put("other", "Java streams", "", "", "");
+
+        // "tips" is in two documents, "scala" only in one
+        assertEquals("rare", ids("scala tips", 10).get(0));
+    }
+
+    @Test
+    void shorterFieldsRankHigherForTheSameMatch() {
+        put("long", "", "", "", "mongodb " + "filler ".repeat(50));
+        put("short", "", "", "", "mongodb indexes");
+
+        assertEquals(List.of("short", "long"), ids("mongodb", 10));
+    }
+
+    @Test
+    void hitsAreBestFirstAndLimitedWhileTotalCountsEveryMatch() {
+        for (int i = 0; i < 20; i++) {
+            // Shorter content, higher score: doc-0 ranks best
+            put("doc-" + i, "", "", "", "search " + "word ".repeat(i));
+        }
+
+        InvertedIndex.Result result = index.search(TextAnalyzer.terms("search"), 5);
+
+        assertEquals(20, result.total());
+        assertEquals(List.of("doc-0", "doc-1", "doc-2", "doc-3", "doc-4"),
+                result.hits().stream().map(hit -> hit.summary().id()).toList());
+        for (int i = 1; i < result.hits().size(); i++) {
+            assertTrue(result.hits().get(i - 1).score() >= result.hits().get(i).score());
+        }
+    }
+
+    @Test
+    void limitZeroOnlyCounts() {
+        put("a", "Spring", "", "", "");
+        put("b", "Spring boot", "", "", "");
+
+        InvertedIndex.Result result = index.search(TextAnalyzer.terms("spring"), 0);
+
+        assertEquals(2, result.total());
+        assertTrue(result.hits().isEmpty());
+    }
+
+    @Test
+    void reindexingReplacesTheOldTerms() {
+        put("a", "Kotlin basics", "", "", "");
+        put("a", "Rust basics", "", "", "");
+
+        assertEquals(1, index.size());
+        assertTrue(ids("kotlin", 10).isEmpty());
+        assertEquals(List.of("a"), ids("rust", 10));
+    }
+
+    @Test
+    void removedDocumentsNoLongerMatch() {
+        put("a", "Kotlin basics", "", "", "");
+        put("b", "Kotlin advanced", "", "", "");
+
+        index.remove("a");
+        index.remove("missing");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("b"), ids("kotlin basics", 10));
+        assertEquals(1, index.search(TextAnalyzer.terms("kotlin basics"), 10).total());
+    }
+
+    @Test
+    void noMatches() {
+        assertEquals(0, index.search(TextAnalyzer.terms("anything"), 10).total());
+        put("a", "Kotlin", "", "", "");
+        assertTrue(ids("haskell", 10).isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package in.raghunath.blogapp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextAnalyzerTests {
+
+    @Test
+    void splitsOnNonAlphanumericsLowerCasesDropsStopWordsAndStems() {
+        assertEquals(List.of("publish", "pipelin", "2024", "s", "run"),
+                TextAnalyzer.terms("The Publishing-pipeline, in 2024: it's running!"));
+    }
+
+    @Test
+    void tokensKeepOffsetsIntoTheOriginalText() {
+        String text = "  Spring BOOT  testing";
+        List<TextAnalyzer.Token> tokens = TextAnalyzer.tokens(text);
+
+        assertEquals(List.of(new TextAnalyzer.Token("spring", 2, 8),
+                new TextAnalyzer.Token("boot", 9, 13),
+                new TextAnalyzer.Token("test", 15, 22)), tokens);
+        assertEquals("testing", text.substring(tokens.get(2).start(), tokens.get(2).end()));
+    }
+
+    @Test
+    void lettersOutsideAsciiAreWordCharacters() {
+        assertEquals(List.of("café", "naïv"), TextAnalyzer.terms("Café naïve"));
+    }
+
+    @Test
+    void emptyInput() {
+        assertTrue(TextAnalyzer.terms(null).isEmpty());
+        assertTrue(TextAnalyzer.terms("").isEmpty());
+        assertTrue(TextAnalyzer.terms("the, and... of!").isEmpty());
+    }
+}
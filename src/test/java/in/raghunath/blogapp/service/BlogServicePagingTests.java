@@ -0,0 +1,136 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.DTO.BlogSummary;
+import in.raghunath.blogapp.DTO.CursorPage;
+import in.raghunath.blogapp.exception.InvalidCursorException;
+import in.raghunath.blogapp.repo.BlogRepo;
+import in.raghunath.blogapp.util.BlogCursor;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BlogServicePagingTests {
+
+    private final BlogRepo blogRepo = mock(BlogRepo.class);
+    private final BlogService blogService = new BlogService();
+
+    @BeforeEach
+    void setUp() {
+        blogService.blogRepo = blogRepo;
+        ReflectionTestUtils.setField(blogService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(blogService, "maxPageSize", 100);
+    }
+
+    // Newest first, one second apart
+    private static List<BlogSummary> summaries(int count) {
+        List<BlogSummary> summaries = new ArrayList<>();
+        long newest = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            summaries.add(summary(new ObjectId().toHexString(), new Date(newest - 1000L * i)));
+        }
+        return summaries;
+    }
+
+    private static BlogSummary summary(String id, Date createdAt) {
+        return new BlogSummary(id, "author", "topic", "title", null, null, 1, true,
+                createdAt, createdAt, null, List.of(), 0L);
+    }
+
+    @Test
+    void fetchesOneExtraRowAndHandsOutACursorToTheLastItem() {
+        List<BlogSummary> rows = summaries(3);
+        when(blogRepo.findByIsPublishedTrue(any(Pageable.class))).thenReturn(rows);
+
+        CursorPage<BlogSummary> page = blogService.getAllPublishedBlogs(null, 2);
+
+        verify(blogRepo).findByIsPublishedTrue(argThat(pageable -> pageable.getPageSize() == 3));
+        assertEquals(rows.subList(0, 2), page.getItems());
+        BlogCursor next = BlogCursor.decode(page.getNext());
+        assertEquals(rows.get(1).createdAt(), next.createdAt());
+        assertEquals(rows.get(1).id(), next.id().toHexString());
+    }
+
+    @Test
+    void theLastPageHasNoCursor() {
+        List<BlogSummary> rows = summaries(2);
+        when(blogRepo.findByIsPublishedTrue(any(Pageable.class))).thenReturn(rows);
+
+        CursorPage<BlogSummary> exactlyFull = blogService.getAllPublishedBlogs(null, 2);
+        CursorPage<BlogSummary> partial = blogService.getAllPublishedBlogs(null, 5);
+
+        assertEquals(rows, exactlyFull.getItems());
+        assertNull(exactlyFull.getNext());
+        assertEquals(rows, partial.getItems());
+        assertNull(partial.getNext());
+    }
+
+    @Test
+    void aCursorSeeksFromItsPosition() {
+        List<BlogSummary> rows = summaries(4);
+        BlogCursor after = BlogCursor.of(rows.get(1).createdAt(), rows.get(1).id());
+        when(blogRepo.findPublishedAfter(eq(after.createdAt()), eq(after.id()), any(Pageable.class)))
+                .thenReturn(rows.subList(2, 4));
+
+        CursorPage<BlogSummary> page = blogService.getAllPublishedBlogs(after.encode(), 2);
+
+        assertEquals(rows.subList(2, 4), page.getItems());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void aLastItemWithoutCreatedAtStillGetsACursor() {
+        List<BlogSummary> rows = summaries(3);
+        ObjectId legacyId = new ObjectId(new Date(1_600_000_000_000L));
+        rows.set(1, summary(legacyId.toHexString(), null));
+        when(blogRepo.findByIsPublishedTrue(any(Pageable.class))).thenReturn(rows);
+
+        CursorPage<BlogSummary> page = blogService.getAllPublishedBlogs(null, 2);
+
+        assertNotNull(page.getNext());
+        assertEquals(legacyId.getDate(), BlogCursor.decode(page.getNext()).createdAt());
+    }
+
+    @Test
+    void moreRowsBehindANonObjectIdIsAnErrorNotASilentEnd() {
+        List<BlogSummary> rows = summaries(3);
+        rows.set(1, summary("legacy-id", new Date()));
+        when(blogRepo.findByIsPublishedTrue(any(Pageable.class))).thenReturn(rows);
+
+        assertThrows(IllegalStateException.class, () -> blogService.getAllPublishedBlogs(null, 2));
+    }
+
+    @Test
+    void anInvalidCursorIsRejectedBeforeQuerying() {
+        assertThrows(InvalidCursorException.class, () -> blogService.getAllPublishedBlogs("garbage!", 2));
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void pageSizesAreDefaultedAndCapped() {
+        when(blogRepo.findByIsPublishedTrue(any(Pageable.class))).thenReturn(List.of());
+
+        blogService.getAllPublishedBlogs(null, null);
+        blogService.getAllPublishedBlogs(null, 1000);
+
+        verify(blogRepo).findByIsPublishedTrue(argThat(pageable -> pageable.getPageSize() == 21));
+        verify(blogRepo).findByIsPublishedTrue(argThat(pageable -> pageable.getPageSize() == 101));
+    }
+}
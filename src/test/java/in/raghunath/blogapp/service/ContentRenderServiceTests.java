@@ -0,0 +1,189 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.model.TocEntry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentRenderServiceTests {
+
+    private final ContentRenderService service = new ContentRenderService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "excerptLength", 40);
+        ReflectionTestUtils.setField(service, "wordsPerMinute", 10);
+    }
+
+    private static Document html(ContentRenderService.Rendered rendered) {
+        return Jsoup.parseBodyFragment(rendered.html());
+    }
+
+    @Test
+    void scriptsAndRawHtmlAreStripped() {
+        String html = service.render("""
+                Before
+
+                <script>alert('x')</script>
+
+                <div onclick="steal()">raw <iframe src="https://evil.example"></iframe></div>
+
+                Inline <span style="color:red">span</span> and <img src="x.png" onerror="steal()"> done
+                """).html();
+
+        assertFalse(html.contains("<script"), html);
+        assertFalse(html.contains("alert"), html);
+        assertFalse(html.contains("<div"), html);
+        assertFalse(html.contains("raw"), html);
+        assertFalse(html.contains("<iframe"), html);
+        assertFalse(html.contains("<span"), html);
+        assertFalse(html.contains("onclick"), html);
+        assertFalse(html.contains("onerror"), html);
+        assertFalse(html.contains("style="), html);
+        assertTrue(html.contains("Before"), html);
+        // Inline tags go, the text between them stays
+        assertTrue(html.contains("<p>Inline span and  done</p>"), html);
+    }
+
+    @Test
+    void unsafeLinksLoseTheirHrefAndEveryLinkGetsRel() {
+        Document doc = html(service.render("""
+                [js](javascript:alert(1)) [data](data:text/html;base64,PHNjcmlwdD4=) \
+                [web](https://example.com/post) [relative](/api/blogs/1) [anchor](#setup)
+                """));
+
+        List<Element> links = doc.select("a");
+        assertEquals(5, links.size());
+        assertFalse(links.get(0).hasAttr("href"));
+        assertFalse(links.get(1).hasAttr("href"));
+        assertEquals("https://example.com/post", links.get(2).attr("href"));
+        assertEquals("/api/blogs/1", links.get(3).attr("href"));
+        assertEquals("#setup", links.get(4).attr("href"));
+        links.forEach(link -> assertEquals("nofollow noopener", link.attr("rel")));
+    }
+
+    @Test
+    void imagesWithUnsafeSourcesAreDropped() {
+        Document doc = html(service.render("![a](javascript:alert(1)) ![b](https://example.com/b.png)"));
+
+        List<Element> images = doc.select("img");
+        assertFalse(images.get(0).hasAttr("src"));
+        assertEquals("https://example.com/b.png", images.get(1).attr("src"));
+    }
+
+    @Test
+    void codeBlocksKeepTheirLanguageClassAndTablesTheirAlignment() {
+        Document doc = html(service.render("""
+                ```java
+                if (a < b) {}
+                ```
+
+                | left | right |
+                |:-----|------:|
+                | 1    | 2     |
+                """));
+
+        Element code = doc.selectFirst("pre > code");
+        assertEquals("language-java", code.className());
+        assertEquals("if (a < b) {}\n", code.wholeText());
+        assertEquals("right", doc.select("td").get(1).attr("align"));
+    }
+
+    @Test
+    void tocAnchorsMatchTheHeadingIdsInTheHtml() {
+        ContentRenderService.Rendered rendered = service.render("""
+                # Setup
+
+                ## Install `npm` packages
+
+                ## Setup
+
+                ### *Setup*
+
+                ## Café & Co.
+
+                Setup
+                -----
+                """);
+
+        List<String> ids = html(rendered).select("h1, h2, h3, h4, h5, h6").eachAttr("id");
+        List<String> anchors = rendered.toc().stream().map(TocEntry::getAnchor).toList();
+        assertEquals(ids, anchors);
+        assertEquals(6, anchors.size());
+        assertEquals(List.of("setup", "setup-1", "setup-2", "setup-3"),
+                List.of(anchors.get(0), anchors.get(2), anchors.get(3), anchors.get(5)));
+
+        TocEntry code = rendered.toc().get(1);
+        assertEquals(2, code.getLevel());
+        assertEquals("Install npm packages", code.getText());
+        assertEquals("install-npm-packages", code.getAnchor());
+        assertEquals(3, rendered.toc().get(3).getLevel());
+        assertEquals("Setup", rendered.toc().get(3).getText());
+    }
+
+    @Test
+    void theExcerptIsCutAtAWordBoundary() {
+        ContentRenderService.Rendered rendered = service.render("""
+                # A heading that is not prose
+
+                The quick brown fox jumps over the lazy dog and keeps on running.
+                """);
+
+        assertEquals("The quick brown fox jumps over the lazy…", rendered.excerpt());
+    }
+
+    @Test
+    void aShortExcerptIsKeptWholeAndWhitespaceCollapsed() {
+        assertEquals("One two three. Four.", service.render("One\ntwo   three.\n\nFour.").excerpt());
+    }
+
+    @Test
+    void aSingleLongWordIsCutAtTheLength() {
+        String word = "x".repeat(60);
+        assertEquals("x".repeat(40) + "…", service.render(word).excerpt());
+    }
+
+    @Test
+    void withoutParagraphsTheExcerptComesFromAllText() {
+        assertEquals("Only a heading", service.render("# Only a heading").excerpt());
+    }
+
+    @Test
+    void wordCountAndReadingTimeRoundUp() {
+        ContentRenderService.Rendered rendered = service.render("one two three four five six seven eight nine ten eleven");
+
+        assertEquals(11, rendered.wordCount());
+        assertEquals(2, rendered.readingTimeMinutes());
+        assertEquals(10, service.render("one two three four five six seven eight nine ten").wordCount());
+        assertEquals(1, service.render("one two three four five six seven eight nine ten").readingTimeMinutes());
+        assertEquals(1, service.render("one").readingTimeMinutes());
+    }
+
+    @Test
+    void markupIsNotCountedAsWords() {
+        ContentRenderService.Rendered rendered = service.render("**bold** [link](https://example.com) `code`");
+
+        assertEquals(3, rendered.wordCount());
+    }
+
+    @Test
+    void blankContentRendersToNothing() {
+        for (String blank : new String[]{null, "", "  \n\t"}) {
+            ContentRenderService.Rendered rendered = service.render(blank);
+            assertEquals("", rendered.html());
+            assertEquals("", rendered.excerpt());
+            assertEquals(0, rendered.wordCount());
+            assertEquals(0, rendered.readingTimeMinutes());
+            assertTrue(rendered.toc().isEmpty());
+        }
+    }
+}
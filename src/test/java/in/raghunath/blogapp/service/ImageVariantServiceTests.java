@@ -0,0 +1,171 @@
+package in.raghunath.blogapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageVariantServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private final ImageStore imageStore = mock(ImageStore.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ImageVariantService service = new ImageVariantService(imageStore, mock(ImageDeletionService.class),
+            executor, "thumb:4,small:8", 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxPixels", 50_000_000L);
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.8f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // 3x2, every pixel a different colour: rgb = 10 * x + y
+    private static BufferedImage grid() {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 2; y++) {
+                image.setRGB(x, y, 10 * x + y);
+            }
+        }
+        return image;
+    }
+
+    private static int source(BufferedImage image, int x, int y) {
+        return image.getRGB(x, y) & 0xFFFFFF;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    void orientsLikeTheExifSpecification(int orientation) {
+        BufferedImage oriented = ImageVariantService.orient(grid(), orientation);
+        int w = 3;
+        int h = 2;
+        boolean sideways = orientation >= 5;
+        assertEquals(sideways ? h : w, oriented.getWidth());
+        assertEquals(sideways ? w : h, oriented.getHeight());
+
+        for (int x = 0; x < oriented.getWidth(); x++) {
+            for (int y = 0; y < oriented.getHeight(); y++) {
+                // Where displayed pixel (x, y) comes from in the stored image
+                int[] from = switch (orientation) {
+                    case 1 -> new int[]{x, y};
+                    case 2 -> new int[]{w - 1 - x, y};
+                    case 3 -> new int[]{w - 1 - x, h - 1 - y};
+                    case 4 -> new int[]{x, h - 1 - y};
+                    case 5 -> new int[]{y, x};
+                    case 6 -> new int[]{y, h - 1 - x};
+                    case 7 -> new int[]{w - 1 - y, h - 1 - x};
+                    default -> new int[]{w - 1 - y, x};
+                };
+                assertEquals(10 * from[0] + from[1], source(oriented, x, y),
+                        "orientation " + orientation + " at " + x + "," + y);
+            }
+        }
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    // APP1 "Exif" with a TIFF header and an IFD0 holding only the Orientation tag, inserted after SOI
+    private static byte[] withOrientation(byte[] jpeg, int orientation, ByteOrder order) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 12 + 4).order(order);
+        tiff.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        tiff.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        byte[] exif = "Exif\0\0".getBytes();
+        int length = 2 + exif.length + tiff.capacity();
+
+        ByteBuffer out = ByteBuffer.allocate(jpeg.length + 2 + length);
+        out.put(jpeg, 0, 2);
+        out.putShort((short) 0xFFE1).putShort((short) length).put(exif).put(tiff.array());
+        out.put(jpeg, 2, jpeg.length - 2);
+        return out.array();
+    }
+
+    @Test
+    void readsTheExifOrientationInEitherByteOrder() throws IOException {
+        byte[] jpeg = jpeg(grid());
+        Path bigEndian = Files.write(dir.resolve("be.jpg"), withOrientation(jpeg, 6, ByteOrder.BIG_ENDIAN));
+        Path littleEndian = Files.write(dir.resolve("le.jpg"), withOrientation(jpeg, 8, ByteOrder.LITTLE_ENDIAN));
+        Path plain = Files.write(dir.resolve("plain.jpg"), jpeg);
+        Path notJpeg = Files.write(dir.resolve("x.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+
+        assertEquals(6, ImageVariantService.exifOrientation(bigEndian));
+        assertEquals(8, ImageVariantService.exifOrientation(littleEndian));
+        assertEquals(1, ImageVariantService.exifOrientation(plain));
+        assertEquals(1, ImageVariantService.exifOrientation(notJpeg));
+    }
+
+    @Test
+    void variantsOfARotatedPhotoAreUpright() throws Exception {
+        // Stored landscape 16x8, displayed portrait 8x16
+        BufferedImage landscape = new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB);
+        Path file = Files.write(dir.resolve("photo.jpg"), withOrientation(jpeg(landscape), 6, ByteOrder.BIG_ENDIAN));
+        when(imageStore.store(any(), anyString(), anyString())).thenReturn(new ImageStore.StoredImage("url", "id"));
+
+        ImageVariantService.Result result = service.store(file, "image/jpeg", "test");
+
+        assertEquals(2, result.variants().size());
+        result.variants().forEach(variant -> assertTrue(variant.getHeight() > variant.getWidth(), variant.toString()));
+        assertEquals(8, result.variants().get(1).getWidth());
+        assertEquals(16, result.variants().get(1).getHeight());
+    }
+
+    @Test
+    void anImageThatFailsToDecodeIsStoredWithoutVariants() throws Exception {
+        byte[] jpeg = jpeg(grid());
+        // A JPEG header followed by garbage: a reader is found, reading fails
+        byte[] broken = new byte[jpeg.length];
+        System.arraycopy(jpeg, 0, broken, 0, 4);
+        for (int i = 4; i < broken.length; i++) {
+            broken[i] = (byte) 0xAB;
+        }
+        Path file = Files.write(dir.resolve("broken.jpg"), broken);
+        when(imageStore.store(any(), anyString(), anyString())).thenReturn(new ImageStore.StoredImage("url", "id"));
+
+        ImageVariantService.Result result = service.store(file, "image/jpeg", "test");
+        assertEquals("url", result.original().url());
+        assertTrue(result.variants().isEmpty());
+        verify(imageStore, times(1)).store(any(), anyString(), anyString());
+
+        // The decode permit (only one here) was given back
+        Path good = Files.write(dir.resolve("good.jpg"), jpeg);
+        assertEquals(2, service.store(good, "image/jpeg", "test").variants().size());
+    }
+}
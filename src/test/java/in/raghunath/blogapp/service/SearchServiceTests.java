@@ -0,0 +1,126 @@
+package in.raghunath.blogapp.service;
+
+import in.raghunath.blogapp.DTO.SearchResults;
+import in.raghunath.blogapp.model.Blog;
+import in.raghunath.blogapp.model.SearchChange;
+import in.raghunath.blogapp.repo.BlogRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchServiceTests {
+
+    private final BlogRepo blogRepo = mock(BlogRepo.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    // What Mongo holds, by id
+    private final Map<String, Blog> stored = new HashMap<>();
+    private SearchService searchService;
+
+    private static Blog blog(String id, String title, boolean published) {
+        Blog blog = new Blog();
+        blog.setId(id);
+        blog.setTitle(title);
+        blog.setContent("About " + title.toLowerCase());
+        blog.setIsPublished(published);
+        return blog;
+    }
+
+    @BeforeEach
+    void setUp() {
+        searchService = new SearchService(blogRepo, mongoTemplate);
+        ReflectionTestUtils.setField(searchService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(searchService, "maxPageSize", 100);
+        for (int i = 0; i < 3; i++) {
+            Blog blog = blog("blog-" + i, "Kotlin part " + i, true);
+            stored.put(blog.getId(), blog);
+            searchService.index(blog);
+        }
+        when(blogRepo.findContentByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return ids.stream().filter(stored::containsKey).map(stored::get).toList();
+        });
+    }
+
+    @Test
+    void pagesThroughHits() {
+        SearchResults first = searchService.search("kotlin", 0, 2);
+        SearchResults second = searchService.search("kotlin", 1, 2);
+
+        assertEquals(2, first.getHits().size());
+        assertEquals(1, second.getHits().size());
+        assertEquals(3, second.getTotal());
+    }
+
+    @Test
+    void pagesPastTheEndAreEmpty() {
+        SearchResults results = searchService.search("kotlin", 2, 2);
+
+        assertTrue(results.getHits().isEmpty());
+        assertEquals(3, results.getTotal());
+    }
+
+    @Test
+    void pageTimesSizeBeyondIntRangeIsAnEmptyPageNotAnError() {
+        // 21474837 * 100 overflows int
+        SearchResults results = searchService.search("kotlin", 21474837, 100);
+
+        assertTrue(results.getHits().isEmpty());
+        assertEquals(3, results.getTotal());
+        assertEquals(21474837, results.getPage());
+
+        assertTrue(searchService.search("kotlin", Integer.MAX_VALUE, 100).getHits().isEmpty());
+    }
+
+    @Test
+    void hitsWhoseBlogIsNoLongerPublishedAreDropped() {
+        // Changed on another node, this one hasn't polled yet
+        stored.get("blog-1").setIsPublished(false);
+        stored.remove("blog-2");
+
+        SearchResults results = searchService.search("kotlin", 0, 10);
+
+        assertEquals(List.of("blog-0"), results.getHits().stream().map(hit -> hit.blog().id()).toList());
+        assertEquals(1, results.getTotal());
+        // And they are gone from the index, not just from this page
+        assertEquals(1, searchService.search("kotlin", 0, 10).getTotal());
+    }
+
+    @Test
+    void pollingPicksUpBlogsChangedOnOtherNodes() {
+        Blog edited = blog("blog-0", "Rust instead", true);
+        Blog created = blog("blog-9", "Kotlin again", true);
+        when(mongoTemplate.find(any(Query.class), eq(SearchChange.class))).thenReturn(List.of(
+                new SearchChange("blog-0", Instant.now()),
+                new SearchChange("blog-1", Instant.now()),
+                new SearchChange("blog-9", Instant.now())));
+        // blog-1 was deleted or unpublished: not among the published ones read back
+        when(mongoTemplate.stream(any(Query.class), eq(Blog.class))).thenReturn(Stream.of(edited, created));
+        stored.put("blog-0", edited);
+        stored.remove("blog-1");
+        stored.put("blog-9", created);
+
+        assertEquals(3, searchService.syncSince(Instant.EPOCH));
+
+        SearchResults kotlin = searchService.search("kotlin", 0, 10);
+        assertEquals(List.of("blog-2", "blog-9"), kotlin.getHits().stream().map(hit -> hit.blog().id()).sorted().toList());
+        assertEquals(2, kotlin.getTotal());
+        assertEquals(1, searchService.search("rust", 0, 10).getTotal());
+    }
+}
@@ -0,0 +1,76 @@
+package in.raghunath.blogapp.util;
+
+import in.raghunath.blogapp.exception.InvalidCursorException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlogCursorTests {
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        ObjectId id = new ObjectId();
+        BlogCursor cursor = BlogCursor.of(new Date(1_700_000_000_123L), id.toHexString());
+
+        BlogCursor decoded = BlogCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(1_700_000_000_123L, decoded.createdAt().getTime());
+        assertEquals(id, decoded.id());
+    }
+
+    @Test
+    void theEncodingIsUrlSafeWithoutPadding() {
+        String encoded = BlogCursor.of(new Date(), new ObjectId().toHexString()).encode();
+
+        assertEquals(-1, encoded.indexOf('='));
+        assertEquals(-1, encoded.indexOf('+'));
+        assertEquals(-1, encoded.indexOf('/'));
+    }
+
+    @Test
+    void aBlogWithoutCreatedAtSeeksFromItsIdsTimestamp() {
+        ObjectId id = new ObjectId(new Date(1_600_000_000_000L));
+
+        BlogCursor cursor = BlogCursor.of(null, id.toHexString());
+
+        assertEquals(new Date(1_600_000_000_000L), cursor.createdAt());
+        assertEquals(cursor, BlogCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void aBlogWhoseIdIsNotAnObjectIdHasNoCursor() {
+        assertNull(BlogCursor.of(new Date(), "legacy-id"));
+        assertNull(BlogCursor.of(new Date(), null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "%%%", "a"})
+    void malformedCursorsAreRejected(String cursor) {
+        assertThrows(InvalidCursorException.class, () -> BlogCursor.decode(cursor));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "no separator",
+            "notanumber:5f1d7f3e8f1b2c3d4e5f6a7b",
+            "1700000000000:not-an-objectid",
+            "1700000000000:",
+            ":5f1d7f3e8f1b2c3d4e5f6a7b"})
+    void wellEncodedButInvalidContentsAreRejected(String raw) {
+        assertThrows(InvalidCursorException.class, () -> BlogCursor.decode(encoded(raw)));
+    }
+}
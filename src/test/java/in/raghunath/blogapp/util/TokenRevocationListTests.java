@@ -0,0 +1,215 @@
+package in.raghunath.blogapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationListTests {
+
+    // 15 minute tokens in 1 minute buckets: a ring of 18
+    private static final long LIFETIME = Duration.ofMinutes(15).toMillis();
+    private static final Duration WIDTH = Duration.ofMinutes(1);
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:30Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final MutableClock clock = new MutableClock();
+    private final TokenRevocationList list = new TokenRevocationList(LIFETIME, WIDTH, 100, clock);
+
+    private Instant in(Duration duration) {
+        return clock.instant().plus(duration);
+    }
+
+    @Test
+    void revokedTokensAreFoundOthersAreNot() {
+        UUID revoked = UUID.randomUUID();
+        Instant expiresAt = in(Duration.ofMinutes(10));
+        list.revoke(revoked, expiresAt);
+
+        assertTrue(list.isRevoked(revoked, expiresAt));
+        assertFalse(list.isRevoked(UUID.randomUUID(), expiresAt));
+        assertFalse(list.isRevoked(null, expiresAt));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void tokensAreSlottedByTheirExpiry() {
+        UUID early = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+        list.revoke(early, in(Duration.ofMinutes(2)));
+        list.revoke(late, in(Duration.ofMinutes(14)));
+
+        assertTrue(list.isRevoked(early, in(Duration.ofMinutes(2))));
+        assertTrue(list.isRevoked(late, in(Duration.ofMinutes(14))));
+        // The lookup goes to the bucket of the expiry it is given, which is the token's own
+        assertFalse(list.isRevoked(early, in(Duration.ofMinutes(14))));
+    }
+
+    @Test
+    void alreadyExpiredTokensAreNotStored() {
+        list.revoke(UUID.randomUUID(), clock.instant());
+        list.revoke(UUID.randomUUID(), in(Duration.ofMinutes(-5)));
+
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void tokensExpiringBeyondTheRingGoToTheOverflow() {
+        UUID longLived = UUID.randomUUID();
+        Instant expiresAt = in(Duration.ofHours(2));
+        list.revoke(longLived, expiresAt);
+
+        assertTrue(list.isRevoked(longLived, expiresAt));
+        assertEquals(1, list.size());
+
+        // Still held while it is valid, through rotations
+        clock.advance(Duration.ofMinutes(90));
+        list.rotate();
+        assertTrue(list.isRevoked(longLived, expiresAt));
+
+        clock.advance(Duration.ofMinutes(31));
+        list.rotate();
+        assertFalse(list.isRevoked(longLived, expiresAt));
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void rotationDropsBucketsOnceAllTheirTokensHaveExpired() {
+        UUID soon = UUID.randomUUID();
+        UUID later = UUID.randomUUID();
+        Instant soonExpiry = in(Duration.ofMinutes(1));
+        Instant laterExpiry = in(Duration.ofMinutes(10));
+        list.revoke(soon, soonExpiry);
+        list.revoke(later, laterExpiry);
+
+        // Expired but its bucket's slot hasn't ended yet: kept
+        clock.advance(Duration.ofMinutes(1).plusSeconds(1));
+        list.rotate();
+        assertEquals(2, list.size());
+
+        clock.advance(Duration.ofMinutes(1));
+        list.rotate();
+        assertEquals(1, list.size());
+        assertFalse(list.isRevoked(soon, soonExpiry));
+        assertTrue(list.isRevoked(later, laterExpiry));
+    }
+
+    @Test
+    void aBucketPositionIsReusedAFullRingLater() {
+        UUID old = UUID.randomUUID();
+        Instant oldExpiry = in(Duration.ofMinutes(5));
+        list.revoke(old, oldExpiry);
+
+        // 18 buckets later the same ring position holds a new slot, without a rotation in between
+        clock.advance(Duration.ofMinutes(18));
+        UUID current = UUID.randomUUID();
+        Instant currentExpiry = oldExpiry.plus(Duration.ofMinutes(18));
+        list.revoke(current, currentExpiry);
+
+        assertTrue(list.isRevoked(current, currentExpiry));
+        assertFalse(list.isRevoked(old, oldExpiry));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void theRebuiltBloomFilterKeepsEveryLiveRevocation() {
+        // Ten times the expected count, so the rebuilt filter has to be sized from what is held
+        List<UUID> ids = new ArrayList<>();
+        List<Instant> expiries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(UUID.randomUUID());
+            expiries.add(in(Duration.ofSeconds(120 + i % 600)));
+            list.revoke(ids.get(i), expiries.get(i));
+        }
+        list.rotate();
+        clock.advance(Duration.ofMinutes(1));
+        list.rotate();
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertTrue(list.isRevoked(ids.get(i), expiries.get(i)), "lost revocation " + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (list.isRevoked(UUID.randomUUID(), expiries.get(i % expiries.size()))) {
+                falsePositives++;
+            }
+        }
+        // The exact set behind the filter answers for its false positives
+        assertEquals(0, falsePositives);
+    }
+
+    @Test
+    void revocationsDuringRotationsAreNeverLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> rotations = executor.submit(() -> {
+                while (running.get()) {
+                    list.rotate();
+                }
+            });
+            List<Future<List<UUID>>> writers = new ArrayList<>();
+            for (int w = 0; w < 2; w++) {
+                writers.add(executor.submit(() -> {
+                    List<UUID> revoked = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        UUID id = UUID.randomUUID();
+                        list.revoke(id, in(Duration.ofMinutes(10)));
+                        revoked.add(id);
+                    }
+                    return revoked;
+                }));
+            }
+            List<UUID> all = new ArrayList<>();
+            for (Future<List<UUID>> writer : writers) {
+                all.addAll(writer.get(30, TimeUnit.SECONDS));
+            }
+            running.set(false);
+            rotations.get(30, TimeUnit.SECONDS);
+
+            for (UUID id : all) {
+                assertTrue(list.isRevoked(id, in(Duration.ofMinutes(10))));
+            }
+            assertEquals(all.size(), list.size());
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+}